@@ -1,6 +1,10 @@
 package org.example;
 
+import org.example.processor.FrameScheduler;
 import org.example.processor.Processor;
+import org.example.recording.GifRecorder;
+import org.example.rom.RomDatabase;
+import org.example.rom.RomSettings;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -12,27 +16,51 @@ import static org.example.processor.Processor.*;
 public class Console {
     private static final String FILENAME = "IBMLogo.ch8";
     private static final int CYCLES_TO_EXECUTE = 220;
+    private static final int RECORDING_SCALE = 4;
+    private static final String RECORD_OPTION = "--record=";
     private static final char PIXEL_ON_CHAR = ' ';
     private static final char PIXEL_OFF_CHAR = '█';
 
-    private static final Processor processor = new Processor();
-    
+    private static Processor processor;
+
     private static int stepCounter = 0;
 
+    // Usage: Console [--record=<file.gif>]
     public static void main(String[] args) throws IOException, URISyntaxException {
         byte[] program = loadProgram(FILENAME);
+        RomSettings settings = RomDatabase.loadDefault().find(program);
+        processor = new Processor(settings.quirks());
         processor.loadMemory(program);
+        int cyclesPerFrame = FrameScheduler.cyclesPerFrame(settings.clockHz());
         dumpMemory(false);
+        GifRecorder recorder = createRecorder(args);
         System.out.println("--- RUN PROGRAM ---");
         for (int i = 0; i < CYCLES_TO_EXECUTE; i++) {
             System.out.printf("Step: %d %s%n", stepCounter++, processor);
             processor.doCycle();
-            processor.decrementTimers();
+            if (stepCounter % cyclesPerFrame == 0) {
+                processor.advanceTime(1);
+                if (recorder != null) {
+                    recorder.submit(processor.getScreen());
+                }
+            }
         }
         System.out.println("--- END PROGRAM ---");
+        if (recorder != null) {
+            recorder.close();
+        }
         dumpScreen();
     }
 
+    private static GifRecorder createRecorder(String[] args) throws IOException {
+        for (String arg : args) {
+            if (arg.startsWith(RECORD_OPTION)) {
+                return new GifRecorder(Path.of(arg.substring(RECORD_OPTION.length())), RECORDING_SCALE);
+            }
+        }
+        return null;
+    }
+
     private static byte[] loadProgram(String filename) throws IOException, URISyntaxException {
         System.out.println("--- LOADING PROGRAM ---");
         Path path = Path.of(ClassLoader.getSystemResource(filename).toURI());
@@ -0,0 +1,161 @@
+package org.example;
+
+import org.example.processor.Debugger;
+import org.example.processor.Disassembler;
+import org.example.processor.FrameScheduler;
+import org.example.processor.Processor;
+import org.example.rom.RomDatabase;
+import org.example.rom.RomSettings;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.example.processor.Debugger.parseNumber;
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+
+// Usage: DebugConsole <rom.ch8>, then type 'help'
+public class DebugConsole {
+    private static final int MAX_FRAMES = 60 * 60;
+    private static final String HELP = """
+            b <addr> [if <reg> <op> <value>]  breakpoint, optionally conditional (e.g. b 0x2a0 if V3 == 0x10)
+            d <addr>                          delete breakpoint
+            w <from> [to]                     stop before FX33/FX55 writes into the range
+            uw <from> [to]                    remove watchpoint
+            c [frames]                        continue until a stop or the frame limit
+            s                                 step one instruction
+            n                                 step over a call
+            f                                 run until the current subroutine returns
+            key <0-F> on|off                  press or release a key
+            r                                 registers and code
+            x <addr> [length]                 memory dump
+            l [addr] [count]                  disassemble
+            screen                            print the screen
+            q                                 quit""";
+
+    private final Processor processor;
+    private final Debugger debugger;
+    private final FrameScheduler scheduler;
+    private final PrintStream out;
+
+    public DebugConsole(Processor processor, int cyclesPerFrame, PrintStream out) {
+        this.processor = processor;
+        this.debugger = new Debugger(processor);
+        this.scheduler = new FrameScheduler(processor, cyclesPerFrame);
+        this.out = out;
+        scheduler.setDebugger(debugger);
+        debugger.pause();
+    }
+
+    public static void main(String[] args) throws IOException {
+        byte[] program = Files.readAllBytes(Path.of(args[0]));
+        RomSettings settings = RomDatabase.loadDefault().find(program);
+        Processor processor = new Processor(settings.quirks());
+        processor.loadMemory(program);
+        DebugConsole console = new DebugConsole(processor, FrameScheduler.cyclesPerFrame(settings.clockHz()),
+                System.out);
+        console.out.print(console.debugger.describe());
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        console.out.print("> ");
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            if (line.trim().equals("q")) {
+                return;
+            }
+            try {
+                console.execute(line.trim());
+            } catch (RuntimeException e) {
+                console.out.println("error: " + e.getMessage());
+            }
+            console.out.print("> ");
+        }
+    }
+
+    public void execute(String line) {
+        String[] words = line.split("\\s+");
+        switch (words[0]) {
+            case "" -> {
+            }
+            case "help", "?" -> out.println(HELP);
+            case "b" -> {
+                int address = parseNumber(words[1]);
+                int condition = line.indexOf(" if ");
+                debugger.addBreakpoint(address,
+                        condition < 0 ? null : Debugger.Condition.parse(line.substring(condition + 4)));
+            }
+            case "d" -> debugger.removeBreakpoint(parseNumber(words[1]));
+            case "w" -> debugger.addWatchpoint(parseNumber(words[1]),
+                    parseNumber(words.length > 2 ? words[2] : words[1]));
+            case "uw" -> debugger.removeWatchpoint(parseNumber(words[1]),
+                    parseNumber(words.length > 2 ? words[2] : words[1]));
+            case "c" -> {
+                debugger.resume();
+                runFrames(words.length > 1 ? Integer.parseInt(words[1]) : MAX_FRAMES);
+            }
+            case "s" -> {
+                debugger.step();
+                out.print(debugger.describe());
+            }
+            case "n" -> {
+                debugger.stepOver();
+                runFrames(MAX_FRAMES);
+            }
+            case "f" -> {
+                debugger.stepOut();
+                runFrames(MAX_FRAMES);
+            }
+            case "key" -> processor.setKey(parseNumber(words[1]), words.length < 3 || words[2].equals("on"));
+            case "r" -> out.print(debugger.describe());
+            case "x" -> dumpMemory(parseNumber(words[1]), words.length > 2 ? parseNumber(words[2]) : 16);
+            case "l" -> disassemble(words.length > 1 ? parseNumber(words[1]) : processor.getProgramCounter(),
+                    words.length > 2 ? parseNumber(words[2]) : 10);
+            case "screen" -> dumpScreen();
+            default -> out.println("unknown command, type 'help'");
+        }
+    }
+
+    private void runFrames(int frames) {
+        for (int frame = 0; frame < frames && !debugger.isPaused(); frame++) {
+            scheduler.runFrame();
+        }
+        if (!debugger.isPaused()) {
+            debugger.pause();
+            out.printf("ran %d frames%n", frames);
+        }
+        out.print(debugger.describe());
+    }
+
+    private void dumpMemory(int from, int length) {
+        int[] memory = processor.getMemory();
+        for (int address = from; address < Math.min(memory.length, from + length); address += 16) {
+            StringBuilder row = new StringBuilder(String.format("%03X:", address));
+            for (int i = address; i < Math.min(address + 16, Math.min(memory.length, from + length)); i++) {
+                row.append(String.format(" %02X", memory[i]));
+            }
+            out.println(row);
+        }
+    }
+
+    private void disassemble(int from, int count) {
+        int[] memory = processor.getMemory();
+        for (int address = from; address < Math.min(memory.length - 1, from + 2 * count); address += 2) {
+            int opcode = (memory[address] << 8) | memory[address + 1];
+            out.printf("%c%03X: %04X  %s%n", debugger.hasBreakpoint(address) ? '*' : ' ', address, opcode,
+                    Disassembler.format(opcode));
+        }
+    }
+
+    private void dumpScreen() {
+        boolean[][] screen = processor.getScreen();
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            StringBuilder row = new StringBuilder();
+            for (int x = 0; x < SCREEN_WIDTH; x++) {
+                row.append(screen[x][y] ? '#' : '.');
+            }
+            out.println(row);
+        }
+    }
+}
@@ -1,77 +1,351 @@
 package org.example;
 
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Group;
 import javafx.scene.Scene;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-import javafx.util.Duration;
+import javafx.stage.WindowEvent;
+import org.example.metrics.EmulatorMetrics;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.PrometheusExporter;
+import org.example.octo.OctoAssembler;
+import org.example.octo.OctoHotReloader;
+import org.example.processor.Debugger;
+import org.example.processor.FrameScheduler;
 import org.example.processor.Processor;
+import org.example.processor.Quirks;
+import org.example.processor.TimerClock;
+import org.example.processor.TimingMode;
+import org.example.processor.VipTiming;
+import org.example.recording.GifRecorder;
+import org.example.render.Compositor;
+import org.example.rom.RomDatabase;
+import org.example.rom.RomLibrary;
+import org.example.rom.RomLibraryWatcher;
+import org.example.rom.RomSettings;
+import org.example.utils.Dashboard;
+import org.example.utils.DebugOverlay;
 import org.example.utils.Keyboard;
+import org.example.utils.RomBrowser;
 import org.example.utils.Screen;
 
 import java.awt.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class Window extends Application {
-    private static final double EMULATION_SPEED = 1.0 / 700; // 700 Hz
-    private static final double TIMERS_SPEED = 1.0 / 60; // 60 Hz
+    private static final long FRAME_BUDGET_NANOS = FrameScheduler.FRAME_NANOS / 2;
+    private static final int MAX_CATCH_UP_FRAMES = 4;
 
-    public static final int WINDOW_WIDTH = 512;
-    public static final int WINDOW_HEIGHT = 256;
+    private static final int DEFAULT_SCALE = 8;
+    private static final float PHOSPHOR_DECAY = 0.6f;
 
-    private final Screen screen = new Screen();
-    private final Processor processor = new Processor();
+    private static final KeyCode RECORD_KEY = KeyCode.F9;
+    private static final KeyCode PAUSE_KEY = KeyCode.F5;
+    private static final KeyCode STEP_KEY = KeyCode.F6;
+    private static final KeyCode STEP_OVER_KEY = KeyCode.F7;
+    private static final KeyCode STEP_OUT_KEY = KeyCode.F8;
+    private static final KeyCode OVERLAY_KEY = KeyCode.F12;
+    private static final int RECORDING_SCALE = 4;
+    private static final int BROWSER_WIDTH = 480;
+    private static final int BROWSER_HEIGHT = 640;
+    private static final int DASHBOARD_SCALE = 2;
 
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private EmulatorMetrics metrics;
+    private PrometheusExporter exporter;
+    private final DebugOverlay overlay = new DebugOverlay();
+    private Debugger debugger;
+    private Screen screen;
+    private Compositor compositor;
+    private Processor processor;
+    private RomSettings settings;
+    private GifRecorder recorder;
+    private RomLibraryWatcher libraryWatcher;
+
+    /*
+     * Usage: Window [--quirks=<profile>] [--timing=cosmac_vip] [--cycles-per-frame=N] [--timers=wall-clock]
+     *               [--scale=N] [--persistence=phosphor|last-two|none] [--metrics=<port | file>] [--break=<addr>,...]
+     *               [--library=<dir | archive.zip>,...] [--dashboard=<dir | archive.zip | rom>,... [--instances=N]]
+     * Without --library or --dashboard a file dialog picks a ROM or an Octo source (.8o), which is reassembled and
+     * patched into the running program whenever it is saved. F9 toggles GIF recording; F5 pauses and continues,
+     * F6 steps, F7 steps over, F8 runs to return and F12 toggles the register and disassembly overlay.
+     */
     public static void main(String[] args) {
         Application.launch(args);
     }
 
     @Override
     public void start(Stage stage) throws IOException {
-        byte[] program = getProgramFromFileChooser(stage);
-        Scene scene = new Scene(screen, WINDOW_WIDTH, WINDOW_HEIGHT);
-        scene.setOnKeyPressed(Keyboard.getKeyEventHandler(processor));
-        scene.setOnKeyReleased(Keyboard.getKeyEventHandler(processor));
+        String library = getParameters().getNamed().get("library");
+        String dashboard = getParameters().getNamed().get("dashboard");
+        if (dashboard != null) {
+            dashboard(stage, Stream.of(dashboard.split(",")).map(Path::of).collect(Collectors.toList()));
+        } else if (library != null) {
+            browse(stage, Stream.of(library.split(",")).map(Path::of).collect(Collectors.toList()));
+        } else {
+            Path path = getProgramFromFileChooser(stage);
+            if (path.getFileName().toString().endsWith(".8o")) {
+                launchSource(stage, path);
+            } else {
+                launch(stage, Files.readAllBytes(path));
+            }
+        }
+    }
+
+    // Assembles an Octo source and reassembles it into the running processor whenever it is saved
+    private void launchSource(Stage stage, Path path) throws IOException {
+        OctoAssembler.Assembly assembly = OctoAssembler.assemble(path);
+        launch(stage, assembly.program());
+        OctoHotReloader reloader = new OctoHotReloader(path, assembly, processor, Platform::runLater,
+                System.out::println);
+        stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, event -> {
+            try {
+                reloader.close();
+            } catch (IOException e) {
+                System.err.println("Cannot stop watching " + path + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // Shows the indexed library at once and refreshes it in the background
+    private void browse(Stage stage, List<Path> roots) throws IOException {
+        RomDatabase database = RomDatabase.loadDefault();
+        RomLibrary library = RomLibrary.open(RomLibrary.DEFAULT_PATH);
+        RomBrowser browser = new RomBrowser(library, (shown, index) -> {
+            try {
+                byte[] program = shown.readProgram(index);
+                libraryWatcher.close();
+                launch(stage, program);
+            } catch (IOException e) {
+                System.err.println("Cannot load ROM: " + e.getMessage());
+            }
+        });
+        libraryWatcher = new RomLibraryWatcher(RomLibrary.DEFAULT_PATH, roots, database, library,
+                refreshed -> Platform.runLater(() -> browser.setLibrary(refreshed)));
+        stage.setOnHidden(event -> {
+            try {
+                libraryWatcher.close();
+            } catch (IOException e) {
+                System.err.println("Cannot stop watching the ROM library: " + e.getMessage());
+            }
+        });
+        stage.setScene(new Scene(browser, BROWSER_WIDTH, BROWSER_HEIGHT));
+        stage.setTitle("Chip-8 library");
+        stage.show();
+    }
+
+    // Runs every ROM under the roots, or --instances= copies of them in turn, side by side
+    private void dashboard(Stage stage, List<Path> roots) throws IOException {
+        RomDatabase database = RomDatabase.loadDefault();
+        RomLibrary library = RomLibrary.open(RomLibrary.DEFAULT_PATH)
+                .refresh(RomLibrary.DEFAULT_PATH, roots, database).library();
+        if (library.size() == 0) {
+            throw new IllegalArgumentException("No ROMs found in " + roots);
+        }
+        List<byte[]> programs = new ArrayList<>();
+        List<RomSettings> romSettings = new ArrayList<>();
+        for (int index = 0; index < library.size(); index++) {
+            byte[] program = library.readProgram(index);
+            programs.add(program);
+            romSettings.add(database.find(program));
+        }
+        String instances = getParameters().getNamed().get("instances");
+        String scale = getParameters().getNamed().get("scale");
+        Dashboard tiles = new Dashboard(programs, romSettings,
+                instances != null ? Integer.parseInt(instances) : programs.size(),
+                scale != null ? Integer.parseInt(scale) : DASHBOARD_SCALE);
+        metrics = metricsRegistry.register("dashboard");
+        AnimationTimer timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                long start = System.nanoTime();
+                tiles.present();
+                metrics.recordRender(System.nanoTime() - start);
+            }
+        };
+        stage.setOnHidden(event -> {
+            timer.stop();
+            tiles.close();
+        });
+        stage.setScene(new Scene(new ScrollPane(tiles)));
+        stage.setTitle("Chip-8 dashboard");
+        stage.show();
+        timer.start();
+    }
+
+    private void launch(Stage stage, byte[] program) throws IOException {
+        settings = RomDatabase.loadDefault().find(program);
+        String quirksName = getParameters().getNamed().get("quirks");
+        processor = new Processor(quirksName != null ? Quirks.forName(quirksName) : settings.quirks());
+        String scale = getParameters().getNamed().get("scale");
+        String persistence = getParameters().getNamed().get("persistence");
+        compositor = new Compositor(scale != null ? Integer.parseInt(scale) : DEFAULT_SCALE,
+                persistence != null ? Compositor.Persistence.valueOf(persistence.toUpperCase().replace('-', '_'))
+                        : Compositor.Persistence.PHOSPHOR, PHOSPHOR_DECAY);
+        screen = new Screen(compositor.getWidth(), compositor.getHeight());
+        Scene scene = new Scene(new Group(screen, overlay), compositor.getWidth(), compositor.getHeight());
+        metrics = metricsRegistry.register("window");
+        String metricsTarget = getParameters().getNamed().get("metrics");
+        if (metricsTarget != null) {
+            exporter = PrometheusExporter.start(metricsRegistry, metricsTarget);
+        }
+        scene.setOnKeyPressed(Keyboard.getKeyEventHandler(processor, settings.keyMap(), metrics));
+        scene.setOnKeyReleased(Keyboard.getKeyEventHandler(processor, settings.keyMap(), metrics));
+        scene.addEventHandler(KeyEvent.KEY_PRESSED, event -> {
+            if (event.getCode() == RECORD_KEY) toggleRecording(stage);
+            else if (debugger != null) handleDebugKey(event.getCode());
+        });
+        stage.setOnHidden(event -> {
+            stopRecording();
+            compositor.close();
+            if (exporter != null) exporter.close();
+        });
         stage.setScene(scene);
         stage.setTitle("Chip-8");
         stage.show();
 
         processor.loadMemory(program);
-        setTimelines();
+        String timers = getParameters().getNamed().get("timers");
+        if (timers != null) {
+            processor.setTimerClock(TimerClock.valueOf(timers.toUpperCase().replace('-', '_')));
+        }
+        String timingName = getParameters().getNamed().get("timing");
+        TimingMode timing = timingName != null ? TimingMode.valueOf(timingName.toUpperCase()) : settings.timing();
+        startFrameLoop(timing);
     }
 
-    private byte[] getProgramFromFileChooser(Stage stage) throws IOException {
+    private Path getProgramFromFileChooser(Stage stage) {
         FileChooser fileChooser = new FileChooser();
-        FileChooser.ExtensionFilter extensionFilter = new FileChooser.ExtensionFilter("Chip-8", "*.ch8");
+        FileChooser.ExtensionFilter extensionFilter = new FileChooser.ExtensionFilter("Chip-8", "*.ch8", "*.8o");
         fileChooser.getExtensionFilters().add(extensionFilter);
-        Path filePath = fileChooser.showOpenDialog(stage).toPath();
-        return Files.readAllBytes(filePath);
+        return fileChooser.showOpenDialog(stage).toPath();
+    }
+
+    private void toggleRecording(Stage stage) {
+        if (recorder != null) {
+            stopRecording();
+            stage.setTitle("Chip-8");
+            return;
+        }
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        try {
+            recorder = new GifRecorder(Path.of("chip8-" + timestamp + ".gif"), RECORDING_SCALE);
+            stage.setTitle("Chip-8 (recording)");
+        } catch (IOException e) {
+            System.err.println("Cannot start recording: " + e.getMessage());
+        }
     }
 
-    private void setTimelines() {
-        Timeline timersTimeline = new Timeline();
-        timersTimeline.setCycleCount(Animation.INDEFINITE);
-        timersTimeline.getKeyFrames().add(new KeyFrame(
-                Duration.seconds(TIMERS_SPEED),
-                t -> {
-                    processor.decrementTimers();
-                    if (processor.isScreenUpdated()) {
-                        boolean[][] screenContent = processor.getScreen();
-                        screen.draw(screenContent);
-                    }
-                    if (processor.isSound()) Toolkit.getDefaultToolkit().beep();
+    private void stopRecording() {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            System.err.println("Recording failed: " + e.getMessage());
+        }
+        recorder = null;
+    }
+
+    // Emulates one frame per elapsed 1/60 s on every display pulse and presents the newest composited image
+    private void startFrameLoop(TimingMode timing) {
+        IntSupplier frame;
+        if (timing == TimingMode.COSMAC_VIP) {
+            frame = new VipTiming(processor)::runFrame;
+        } else {
+            String cycles = getParameters().getNamed().get("cycles-per-frame");
+            FrameScheduler scheduler = new FrameScheduler(processor,
+                    cycles != null ? Integer.parseInt(cycles) : FrameScheduler.cyclesPerFrame(settings.clockHz()));
+            scheduler.setBudgetNanos(FRAME_BUDGET_NANOS);
+            debugger = new Debugger(processor);
+            String breakpoints = getParameters().getNamed().get("break");
+            if (breakpoints != null) {
+                for (String address : breakpoints.split(",")) {
+                    debugger.addBreakpoint(Debugger.parseNumber(address));
+                }
+            }
+            scheduler.setDebugger(debugger);
+            frame = scheduler::runFrame;
+        }
+        new AnimationTimer() {
+            private long last;
+            private long lag;
+
+            @Override
+            public void handle(long now) {
+                lag += last == 0 ? FrameScheduler.FRAME_NANOS : now - last;
+                last = now;
+                int frames = 0;
+                while (lag >= FrameScheduler.FRAME_NANOS && frames < MAX_CATCH_UP_FRAMES) {
+                    long start = metrics.startFrame();
+                    metrics.endFrame(start, frame.getAsInt());
+                    compositor.submit(processor.getScreen());
+                    if (recorder != null) recorder.submit(processor.getScreen());
+                    lag -= FrameScheduler.FRAME_NANOS;
+                    frames++;
+                }
+                if (frames == MAX_CATCH_UP_FRAMES) {
+                    metrics.framesDropped(lag / FrameScheduler.FRAME_NANOS);
+                    lag = 0; // too far behind, skip instead of spiralling
+                }
+                if (frames > 0) {
+                    long start = System.nanoTime();
+                    present();
+                    metrics.recordRender(System.nanoTime() - start);
                 }
-        ));
-        timersTimeline.play();
-        Timeline cycleTimeline = new Timeline();
-        cycleTimeline.setCycleCount(Animation.INDEFINITE);
-        cycleTimeline.getKeyFrames().add(
-                new KeyFrame(Duration.seconds(EMULATION_SPEED), t -> processor.doCycle()));
-        cycleTimeline.play();
+            }
+        }.start();
+    }
+
+    private void handleDebugKey(KeyCode code) {
+        boolean paused = debugger.isPaused();
+        if (code == PAUSE_KEY) {
+            if (paused) debugger.resume();
+            else debugger.pause();
+        } else if (code == STEP_KEY && paused) {
+            debugger.step();
+            compositor.submit(processor.getScreen());
+        } else if (code == STEP_OVER_KEY && paused) {
+            debugger.stepOver();
+        } else if (code == STEP_OUT_KEY && paused && debugger.isInSubroutine()) {
+            debugger.stepOut();
+        } else if (code == OVERLAY_KEY) {
+            overlay.setVisible(!overlay.isVisible());
+        }
+        updateOverlay();
+    }
+
+    private void updateOverlay() {
+        if (debugger.isPaused() && !overlay.isVisible()) {
+            overlay.setVisible(true);
+        }
+        if (overlay.isVisible()) {
+            overlay.setText(debugger.describe());
+        }
+    }
+
+    private void present() {
+        int[] pixels = compositor.poll();
+        if (pixels != null) {
+            screen.draw(pixels);
+        }
+        if (debugger != null) updateOverlay();
+        if (processor.isSound()) Toolkit.getDefaultToolkit().beep();
     }
 }
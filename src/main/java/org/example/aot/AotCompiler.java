@@ -0,0 +1,188 @@
+package org.example.aot;
+
+import org.example.processor.Processor;
+import org.example.processor.Quirks;
+import org.example.processor.TranslatedProgram;
+import org.example.rom.RomHash;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/*
+ * Compiles translated ROMs with the system Java compiler and caches the class files on disk, keyed by the SHA-1
+ * of the ROM and the one quirk that changes the generated code. A cached ROM is loaded straight from its class
+ * file without translating or compiling. Each class is compiled into a private directory and moved into the
+ * cache in one step, so concurrent runs never load a half-written class.
+ */
+public class AotCompiler {
+    public static final Path DEFAULT_CACHE = Path.of(System.getProperty("user.home"), ".cache", "chip8", "aot");
+
+    private final Path cacheDirectory;
+    private final Map<String, Class<? extends TranslatedProgram>> loaded = new ConcurrentHashMap<>();
+    private URLClassLoader classLoader;
+
+    public AotCompiler(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    static String className(byte[] program, Quirks quirks) {
+        return "Rom" + RomTranslator.VERSION + "_" + RomHash.of(program) + (quirks.logicResetsVF() ? "_vf" : "");
+    }
+
+    private Path classFile(String className) {
+        return classFile(cacheDirectory, className);
+    }
+
+    private static Path classFile(Path root, String className) {
+        return root.resolve(RomTranslator.PACKAGE.replace('.', '/')).resolve(className + ".class");
+    }
+
+    public boolean isCached(byte[] program, Quirks quirks) {
+        return Files.exists(classFile(className(program, quirks)));
+    }
+
+    /*
+     * Returns a translated program running on the processor, which must have the ROM loaded, or null when this
+     * runtime has no Java compiler and the ROM is not cached yet.
+     */
+    public TranslatedProgram load(Processor processor, byte[] program) throws IOException {
+        String className = className(program, processor.getQuirks());
+        Class<? extends TranslatedProgram> type = loaded.get(className);
+        if (type == null) {
+            if (!Files.exists(classFile(className)) && !compile(className, processor)) {
+                return null;
+            }
+            type = loadClass(className);
+        }
+        try {
+            return type.getConstructor(Processor.class).newInstance(processor);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate " + className, e);
+        }
+    }
+
+    private synchronized Class<? extends TranslatedProgram> loadClass(String className) throws IOException {
+        Class<? extends TranslatedProgram> type = loaded.get(className);
+        if (type != null) {
+            return type;
+        }
+        if (classLoader == null) {
+            classLoader = new URLClassLoader(new URL[]{cacheDirectory.toUri().toURL()},
+                    TranslatedProgram.class.getClassLoader());
+        }
+        try {
+            type = Class.forName(RomTranslator.PACKAGE + "." + className, true, classLoader)
+                    .asSubclass(TranslatedProgram.class);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Cached translation disappeared: " + className, e);
+        }
+        loaded.put(className, type);
+        return type;
+    }
+
+    private boolean compile(String className, Processor processor) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            return false;
+        }
+        RomTranslator translator = new RomTranslator(processor.getMemory(), processor.getQuirks().logicResetsVF());
+        Files.createDirectories(cacheDirectory);
+        Path workDirectory = Files.createTempDirectory(cacheDirectory, "compile");
+        try {
+            Path source = workDirectory.resolve(className + ".java");
+            Files.writeString(source, translator.generate(className));
+            ByteArrayOutputStream errors = new ByteArrayOutputStream();
+            int result = compiler.run(null, null, errors, "-d", workDirectory.toString(), "-classpath",
+                    classPath(), "-g:none", "-nowarn", source.toString());
+            if (result != 0) {
+                throw new IllegalStateException("Cannot compile translation of " + className + ":\n"
+                        + errors.toString(StandardCharsets.UTF_8));
+            }
+            Path target = classFile(className);
+            Files.createDirectories(target.getParent());
+            Files.move(classFile(workDirectory, className), target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } finally {
+            deleteRecursively(workDirectory);
+        }
+    }
+
+    // The generated class only needs TranslatedProgram and Processor
+    private static String classPath() {
+        try {
+            URL location = TranslatedProgram.class.getProtectionDomain().getCodeSource().getLocation();
+            return Path.of(location.toURI()).toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    // Usage: AotCompiler <rom.ch8> [frames] [cycles per frame], runs headless with and without translation
+    public static void main(String[] args) throws IOException {
+        byte[] program = Files.readAllBytes(Path.of(args[0]));
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 36_000;
+        int cyclesPerFrame = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+
+        long start = System.nanoTime();
+        Processor interpreted = new Processor();
+        interpreted.seedRandom(0);
+        interpreted.loadMemory(program);
+        for (int frame = 0; frame < frames; frame++) {
+            for (int cycle = 0; cycle < cyclesPerFrame; cycle++) {
+                interpreted.doCycle();
+            }
+            interpreted.advanceTime(1);
+        }
+        long interpreterNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        Processor processor = new Processor();
+        processor.seedRandom(0);
+        processor.loadMemory(program);
+        AotCompiler compiler = new AotCompiler(DEFAULT_CACHE);
+        boolean cached = compiler.isCached(program, processor.getQuirks());
+        TranslatedProgram translated = compiler.load(processor, program);
+        if (translated == null) {
+            System.out.println("No Java compiler available, translation skipped");
+            return;
+        }
+        long loadNanos = System.nanoTime() - start;
+        for (int frame = 0; frame < frames; frame++) {
+            translated.run(cyclesPerFrame);
+            processor.advanceTime(1);
+        }
+        long translatedNanos = System.nanoTime() - start - loadNanos;
+
+        System.out.printf("interpreter %.1f ms, translation %s in %.1f ms then %.1f ms, screens %s%n",
+                interpreterNanos / 1e6, cached ? "loaded from cache" : "compiled", loadNanos / 1e6,
+                translatedNanos / 1e6,
+                interpreted.getScreenHash() == processor.getScreenHash() ? "match" : "DIFFER");
+    }
+}
@@ -0,0 +1,240 @@
+package org.example.aot;
+
+import org.example.processor.Disassembler;
+import org.example.processor.RomImage;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.example.processor.Processor.FIRST_PROG_INSTR_ADDRESS;
+
+/*
+ * Translates a ROM into the Java source of a TranslatedProgram. Code is discovered by following control flow from
+ * 0x200: jumps, calls, both sides of every skip and the return site of every call start basic blocks, while
+ * computed jumps (BNNN) and returns end a block without a known successor and are left to the dispatcher. Each
+ * block becomes one method that counts down the instruction budget after every instruction, so a translated run
+ * stops on exactly the same instruction as the interpreter would. The method is a switch falling through its
+ * instructions, entered at whichever one the next run starts with.
+ */
+class RomTranslator {
+    static final String PACKAGE = "org.example.aot.generated";
+    // Part of the cached class names; bump it whenever the generated code changes so stale translations are ignored
+    static final int VERSION = 3;
+
+    private final int[] memory;
+    private final boolean logicResetsVF;
+    private final long[] translated = new long[RomImage.MEMORY_SIZE / 64];
+    private final TreeSet<Integer> leaders = new TreeSet<>();
+    // Every translated address and the leader of the block it is generated in
+    private final TreeMap<Integer, Integer> entries = new TreeMap<>();
+
+    RomTranslator(int[] memory, boolean logicResetsVF) {
+        this.memory = memory;
+        this.logicResetsVF = logicResetsVF;
+        discover();
+    }
+
+    private int opcodeAt(int address) {
+        return (memory[address] << 8) | memory[address + 1];
+    }
+
+    private static boolean isTranslatable(int address) {
+        return address >= FIRST_PROG_INSTR_ADDRESS && address + 1 < RomImage.MEMORY_SIZE;
+    }
+
+    private void discover() {
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.add(FIRST_PROG_INSTR_ADDRESS);
+        while (!pending.isEmpty()) {
+            int leader = pending.poll();
+            if (!isTranslatable(leader) || !leaders.add(leader)) {
+                continue;
+            }
+            for (int address = leader; isTranslatable(address); address += 2) {
+                if (address != leader && leaders.contains(address)) {
+                    break;
+                }
+                translated[address >>> 6] |= 1L << address;
+                int opcode = opcodeAt(address);
+                if (isTerminator(opcode)) {
+                    addSuccessors(opcode, address, pending);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static boolean isTerminator(int opcode) {
+        if (opcode == 0x00EE) {
+            return true;
+        }
+        return switch (opcode >>> 12) {
+            case 0x1, 0x2, 0x3, 0x4, 0xB -> true;
+            case 0x5, 0x9 -> (opcode & 0x000F) == 0;
+            case 0xE -> (opcode & 0x00FF) == 0x9E || (opcode & 0x00FF) == 0xA1;
+            case 0xF -> (opcode & 0x00FF) == 0x0A || (opcode & 0x00FF) == 0x33 || (opcode & 0x00FF) == 0x55;
+            default -> false;
+        };
+    }
+
+    private static void addSuccessors(int opcode, int address, Deque<Integer> pending) {
+        switch (opcode >>> 12) {
+            case 0x0, 0xB -> {
+            }
+            case 0x1 -> pending.add(opcode & 0x0FFF);
+            case 0x2 -> {
+                pending.add(opcode & 0x0FFF);
+                pending.add(address + 2);
+            }
+            case 0x3, 0x4, 0x5, 0x9, 0xE -> {
+                pending.add(address + 2);
+                pending.add(address + 4);
+            }
+            default -> pending.add(address + 2);
+        }
+    }
+
+    long[] getTranslated() {
+        return translated.clone();
+    }
+
+    int getBlockCount() {
+        return leaders.size();
+    }
+
+    String generate(String className) {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(PACKAGE).append(";\n\n")
+                .append("import org.example.processor.Processor;\n")
+                .append("import org.example.processor.TranslatedProgram;\n\n")
+                .append("public final class ").append(className).append(" extends TranslatedProgram {\n")
+                .append("    private static final long[] TRANSLATED = {");
+        for (int i = 0; i < translated.length; i++) {
+            source.append(i % 4 == 0 ? "\n            " : " ").append(String.format("0x%016XL,", translated[i]));
+        }
+        source.append("\n    };\n\n")
+                .append("    public ").append(className).append("(Processor processor) {\n")
+                .append("        super(processor, TRANSLATED);\n")
+                .append("    }\n");
+        StringBuilder blocks = new StringBuilder();
+        for (int leader : leaders) {
+            generateBlock(blocks, leader);
+        }
+        generateDispatch(source);
+        return source.append(blocks).append("}\n").toString();
+    }
+
+    // Two levels of switches keep every method small enough for the JIT compiler
+    private void generateDispatch(StringBuilder source) {
+        source.append("\n    @Override\n    protected boolean dispatch(int address) {\n")
+                .append("        switch (address >>> 8) {\n");
+        TreeSet<Integer> pages = new TreeSet<>();
+        entries.keySet().forEach(address -> pages.add(address >>> 8));
+        for (int page : pages) {
+            source.append(String.format("            case 0x%X:%n                return page%X(address);%n", page,
+                    page));
+        }
+        source.append("            default:\n                return false;\n        }\n    }\n");
+        for (int page : pages) {
+            source.append(String.format("%n    private boolean page%X(int address) {%n", page))
+                    .append("        switch (address) {\n");
+            for (Map.Entry<Integer, Integer> entry : entries.subMap(page << 8, (page + 1) << 8).entrySet()) {
+                source.append(String.format("            case 0x%03X:%n                b%03X(address);%n"
+                        + "                return true;%n", entry.getKey(), entry.getValue()));
+            }
+            source.append("            default:\n                return false;\n        }\n    }\n");
+        }
+    }
+
+    private void generateBlock(StringBuilder source, int leader) {
+        source.append(String.format("%n    private void b%03X(int entry) {%n        switch (entry) {%n", leader));
+        for (int address = leader; ; address += 2) {
+            int opcode = opcodeAt(address);
+            int next = address + 2;
+            entries.put(address, leader);
+            source.append(String.format("            case 0x%03X: // %04X  %s%n", address, opcode,
+                    Disassembler.format(opcode)));
+            if (isTerminator(opcode)) {
+                source.append("                ").append(terminator(opcode, address)).append('\n')
+                        .append("                remaining--;\n");
+                break;
+            }
+            String body = body(opcode, address);
+            if (!body.isEmpty()) {
+                source.append("                ").append(body).append('\n');
+            }
+            if (!isTranslatable(next) || leaders.contains(next)) {
+                source.append(String.format("                pc = 0x%03X;%n                remaining--;%n", next));
+                break;
+            }
+            source.append(String.format("                if (--remaining == 0) {%n                    pc = 0x%03X;%n"
+                    + "                    return;%n                }%n", next));
+        }
+        source.append("        }\n    }\n");
+    }
+
+    private static String terminator(int opcode, int address) {
+        int x = (opcode & 0x0F00) >>> 8;
+        int y = (opcode & 0x00F0) >>> 4;
+        int nn = opcode & 0x00FF;
+        int nnn = opcode & 0x0FFF;
+        int next = address + 2;
+        int skip = address + 4;
+        if (opcode == 0x00EE) {
+            return "pc = pop();";
+        }
+        return switch (opcode >>> 12) {
+            case 0x1 -> String.format("pc = 0x%03X;", nnn);
+            case 0x2 -> String.format("push(0x%03X); pc = 0x%03X;", next, nnn);
+            case 0x3 -> String.format("pc = v[%d] == 0x%02X ? 0x%03X : 0x%03X;", x, nn, skip, next);
+            case 0x4 -> String.format("pc = v[%d] != 0x%02X ? 0x%03X : 0x%03X;", x, nn, skip, next);
+            case 0x5 -> String.format("pc = v[%d] == v[%d] ? 0x%03X : 0x%03X;", x, y, skip, next);
+            case 0x9 -> String.format("pc = v[%d] != v[%d] ? 0x%03X : 0x%03X;", x, y, skip, next);
+            case 0xE -> String.format("pc = %skeys[v[%d]] ? 0x%03X : 0x%03X;", nn == 0x9E ? "" : "!", x, skip, next);
+            default -> String.format("pc = execute(0x%04X, 0x%03X);", opcode, address);
+        };
+    }
+
+    private String body(int opcode, int address) {
+        int x = (opcode & 0x0F00) >>> 8;
+        int y = (opcode & 0x00F0) >>> 4;
+        int nn = opcode & 0x00FF;
+        String resetFlag = logicResetsVF ? " v[15] = 0;" : "";
+        String delegate = String.format("execute(0x%04X, 0x%03X);", opcode, address);
+        return switch (opcode >>> 12) {
+            case 0x0 -> opcode == 0x00E0 ? delegate : "";
+            case 0x5, 0x9 -> "";
+            case 0x6 -> String.format("v[%d] = 0x%02X;", x, nn);
+            case 0x7 -> String.format("v[%d] = (v[%d] + 0x%02X) & 0xFF;", x, x, nn);
+            case 0x8 -> switch (opcode & 0x000F) {
+                case 0x0 -> String.format("v[%d] = v[%d];", x, y);
+                case 0x1 -> String.format("v[%d] |= v[%d];%s", x, y, resetFlag);
+                case 0x2 -> String.format("v[%d] &= v[%d];%s", x, y, resetFlag);
+                case 0x3 -> String.format("v[%d] ^= v[%d];%s", x, y, resetFlag);
+                case 0x4 -> String.format("{ int s = v[%1$d] + v[%2$d]; v[%1$d] = s & 0xFF;"
+                        + " v[15] = s > 0xFF ? 1 : 0; }", x, y);
+                case 0x5 -> String.format("{ int d = v[%1$d] - v[%2$d]; v[%1$d] = d & 0xFF; v[15] = d < 0 ? 0 : 1; }",
+                        x, y);
+                case 0x7 -> String.format("{ int d = v[%2$d] - v[%1$d]; v[%1$d] = d & 0xFF; v[15] = d < 0 ? 0 : 1; }",
+                        x, y);
+                case 0x6, 0xE -> delegate;
+                default -> "";
+            };
+            case 0xA -> String.format("index(0x%03X);", opcode & 0x0FFF);
+            case 0xE -> "";
+            case 0xF -> switch (nn) {
+                case 0x07 -> String.format("v[%d] = delayTimer();", x);
+                case 0x15 -> String.format("delayTimer(v[%d]);", x);
+                case 0x18 -> String.format("soundTimer(v[%d]);", x);
+                case 0x1E -> String.format("index((index() + v[%d]) & 0xFFF);", x);
+                case 0x29 -> String.format("index(v[%d] * 5);", x);
+                case 0x65 -> delegate;
+                default -> "";
+            };
+            default -> delegate; // CXNN, DXYN
+        };
+    }
+}
@@ -0,0 +1,192 @@
+package org.example.differential;
+
+import org.example.aot.AotCompiler;
+import org.example.processor.Disassembler;
+import org.example.processor.FrameScheduler;
+import org.example.processor.Quirks;
+import org.example.processor.XorShift;
+import org.example.rom.RomDatabase;
+import org.example.rom.RomSettings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/*
+ * Runs a reference and a candidate engine in lockstep on the same ROM, random seed and key presses, and compares
+ * their state hashes every checkInterval instructions. When the hashes differ the full states are compared, and
+ * if they really diverged both engines are replayed from the start to bisect the interval since the last matching
+ * check down to the single instruction after which they disagree.
+ *
+ * Key presses are a pure function of the seed and the frame number: at the start of every 60 Hz frame the held keys
+ * change with a probability of one in eight, to nothing or to a single random key.
+ */
+public class DifferentialHarness {
+    private static final int KEY_CHANGE_ODDS = 8;
+
+    private final Supplier<Engine> reference;
+    private final Supplier<Engine> candidate;
+    private final int checkInterval;
+
+    public DifferentialHarness(Supplier<Engine> reference, Supplier<Engine> candidate, int checkInterval) {
+        if (checkInterval < 1) {
+            throw new IllegalArgumentException("Check interval must be positive: " + checkInterval);
+        }
+        this.reference = reference;
+        this.candidate = candidate;
+        this.checkInterval = checkInterval;
+    }
+
+    // The first instruction after which the engines disagree: cycle is the number of instructions executed before it
+    public record Divergence(long cycle, int programCounter, int opcode, List<String> differences) {
+        @Override
+        public String toString() {
+            return String.format("cycle %d, %03X: %04X  %s: %s", cycle, programCounter, opcode,
+                    Disassembler.format(opcode), String.join(", ", differences));
+        }
+    }
+
+    public record Result(String name, long cycles, Divergence divergence) {
+        public boolean matches() {
+            return divergence == null;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + (divergence == null ? "match after " + cycles + " instructions" : divergence);
+        }
+    }
+
+    private record Run(byte[] program, Quirks quirks, long seed, int cyclesPerFrame) {
+        Engine start(Supplier<Engine> factory) {
+            Engine engine = factory.get();
+            engine.load(program, quirks, seed);
+            return engine;
+        }
+
+        // Advances an engine that has executed from instructions to the given count
+        void advance(Engine engine, long from, long to) {
+            while (from < to) {
+                if (from % cyclesPerFrame == 0) {
+                    engine.setKeys(keysForFrame(seed, from / cyclesPerFrame));
+                }
+                long frameEnd = (from / cyclesPerFrame + 1) * cyclesPerFrame;
+                long end = Math.min(to, frameEnd);
+                engine.step((int) (end - from));
+                from = end;
+                if (from == frameEnd) {
+                    engine.advanceTime(1);
+                }
+            }
+        }
+    }
+
+    // The keys chosen at the most recent change, found by walking back from the frame
+    static int keysForFrame(long seed, long frame) {
+        for (long changed = frame; changed > 0; changed--) {
+            long state = XorShift.next(XorShift.seed(seed * 0x9E3779B97F4A7C15L + changed));
+            if (XorShift.randomByte(state) % KEY_CHANGE_ODDS == 0) {
+                int key = (int) (state & 0x1F);
+                return key < 16 ? 1 << key : 0;
+            }
+        }
+        return 0;
+    }
+
+    public Result run(String name, byte[] program, RomSettings settings, long seed, int frames) {
+        Run run = new Run(program, settings.quirks(), seed, FrameScheduler.cyclesPerFrame(settings.clockHz()));
+        long total = (long) frames * run.cyclesPerFrame();
+        Engine expected = run.start(reference);
+        Engine actual = run.start(candidate);
+        long checked = 0;
+        while (checked < total) {
+            long next = Math.min(total, checked + checkInterval);
+            run.advance(expected, checked, next);
+            run.advance(actual, checked, next);
+            if (expected.stateHash() != actual.stateHash()
+                    && !expected.capture().differences(actual.capture()).isEmpty()) {
+                return new Result(name, next, bisect(run, checked, next));
+            }
+            if (expected.isFaulted() && actual.isFaulted()) {
+                return new Result(name, next, null);
+            }
+            checked = next;
+        }
+        return new Result(name, total, null);
+    }
+
+    // The engines agree after good instructions and disagree after bad ones
+    private Divergence bisect(Run run, long good, long bad) {
+        while (bad - good > 1) {
+            long middle = (good + bad) >>> 1;
+            if (replay(run, reference, middle).capture().differences(replay(run, candidate, middle).capture())
+                    .isEmpty()) {
+                good = middle;
+            } else {
+                bad = middle;
+            }
+        }
+        Engine expected = replay(run, reference, good);
+        MachineState before = expected.capture();
+        int programCounter = before.programCounter();
+        int opcode = programCounter + 1 < before.memory().length
+                ? before.memory()[programCounter] << 8 | before.memory()[programCounter + 1] : 0;
+        run.advance(expected, good, bad);
+        Engine actual = replay(run, candidate, bad);
+        return new Divergence(good, programCounter, opcode, expected.capture().differences(actual.capture()));
+    }
+
+    private static Engine replay(Run run, Supplier<Engine> factory, long cycles) {
+        Engine engine = run.start(factory);
+        run.advance(engine, 0, cycles);
+        return engine;
+    }
+
+    // Compares every .ch8 in the archive, in parallel, each with its settings from the database
+    public List<Result> runArchive(Path archive, RomDatabase database, long seed, int frames) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<byte[]> programs = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            for (ZipEntry entry : zip.stream().collect(Collectors.toList())) {
+                if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(".ch8")) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        programs.add(in.readAllBytes());
+                    }
+                    names.add(entry.getName().substring(entry.getName().lastIndexOf('/') + 1));
+                }
+            }
+        }
+        return IntStream.range(0, names.size()).parallel()
+                .mapToObj(index -> run(names.get(index), programs.get(index), database.find(programs.get(index)),
+                        seed, frames))
+                .collect(Collectors.toList());
+    }
+
+    // Usage: DifferentialHarness <archive.zip> [fleet | aot] [frames] [check interval] [seed]
+    public static void main(String[] args) throws IOException {
+        String engine = args.length > 1 ? args[1] : "fleet";
+        int frames = args.length > 2 ? Integer.parseInt(args[2]) : 3600;
+        int checkInterval = args.length > 3 ? Integer.parseInt(args[3]) : 1024;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        AotCompiler compiler = new AotCompiler(AotCompiler.DEFAULT_CACHE);
+        Supplier<Engine> candidate = switch (engine) {
+            case "fleet" -> FleetEngine::new;
+            case "aot" -> () -> new TranslatedEngine(compiler);
+            default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+        };
+        DifferentialHarness harness = new DifferentialHarness(InterpreterEngine::new, candidate, checkInterval);
+        long start = System.nanoTime();
+        List<Result> results = harness.runArchive(Path.of(args[0]), RomDatabase.loadDefault(), seed, frames);
+        long diverged = results.stream().filter(result -> !result.matches()).peek(System.out::println).count();
+        System.out.printf("%d ROMs, %d diverged, %.1f s%n", results.size(), diverged,
+                (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.differential;
+
+import org.example.processor.Quirks;
+
+/*
+ * One CHIP-8 implementation driven by the differential harness. Engines must be deterministic for a given
+ * program, quirks and random seed, so that a run can be replayed to any cycle. A fault (stack under- or overflow,
+ * access outside memory) ends execution: later steps do nothing.
+ */
+public interface Engine {
+    void load(byte[] program, Quirks quirks, long seed);
+
+    // Executes up to the given number of instructions without touching the timers
+    void step(int cycles);
+
+    // Lets the given number of 60 Hz timer ticks pass
+    void advanceTime(long ticks);
+
+    // Bit k set holds key k down
+    void setKeys(int keyMask);
+
+    boolean isFaulted();
+
+    long stateHash();
+
+    MachineState capture();
+}
@@ -0,0 +1,85 @@
+package org.example.differential;
+
+import org.example.fleet.Fleet;
+import org.example.processor.Quirks;
+import org.example.processor.StateHash;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+
+// A single lane of the structure-of-arrays Fleet; its state hash is computed from scratch on every call
+public class FleetEngine implements Engine {
+    private static final int MEMORY_SIZE = 4096;
+
+    private Fleet fleet;
+
+    @Override
+    public void load(byte[] program, Quirks quirks, long seed) {
+        fleet = new Fleet(1, quirks, ForkJoinPool.commonPool());
+        fleet.load(program);
+        fleet.reset(0, seed);
+    }
+
+    @Override
+    public void step(int cycles) {
+        fleet.step(cycles);
+    }
+
+    @Override
+    public void advanceTime(long ticks) {
+        for (long tick = 0; tick < ticks; tick++) {
+            fleet.decrementTimers();
+        }
+    }
+
+    @Override
+    public void setKeys(int keyMask) {
+        fleet.setKeys(0, keyMask);
+    }
+
+    @Override
+    public boolean isFaulted() {
+        return fleet.isFaulted(0);
+    }
+
+    @Override
+    public long stateHash() {
+        if (isFaulted()) {
+            return 0;
+        }
+        MachineState state = capture();
+        long screenHash = 0;
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            for (long row = state.screen()[y]; row != 0; row &= row - 1) {
+                screenHash ^= StateHash.pixel(63 - Long.numberOfTrailingZeros(row), y);
+            }
+        }
+        return StateHash.combine(state.programCounter(), state.indexRegister(), state.stackPointer(),
+                state.delayTimer(), state.soundTimer(), state.registers(), state.stack(),
+                StateHash.memory(state.memory()), screenHash);
+    }
+
+    @Override
+    public MachineState capture() {
+        int[] registers = new int[16];
+        for (int x = 0; x < registers.length; x++) {
+            registers[x] = fleet.getRegister(0, x);
+        }
+        int[] stack = new int[Math.min(fleet.getStackPointer(0), 16)];
+        for (int level = 0; level < stack.length; level++) {
+            stack[level] = fleet.getStack(0, level);
+        }
+        int[] memory = new int[MEMORY_SIZE];
+        for (int address = 0; address < MEMORY_SIZE; address++) {
+            memory[address] = fleet.getMemory(0, address);
+        }
+        long[] screen = new long[SCREEN_HEIGHT];
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            screen[y] = fleet.getScreenRow(0, y);
+        }
+        return new MachineState(isFaulted(), fleet.getProgramCounter(0), fleet.getIndexRegister(0),
+                fleet.getStackPointer(0), fleet.getDelayTimer(0), fleet.getSoundTimer(0), registers, stack, memory,
+                screen);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.differential;
+
+import org.example.processor.Processor;
+import org.example.processor.Quirks;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+
+// The reference: Processor executing one instruction at a time
+public class InterpreterEngine implements Engine {
+    protected Processor processor;
+    private boolean faulted;
+
+    @Override
+    public void load(byte[] program, Quirks quirks, long seed) {
+        processor = new Processor(quirks);
+        processor.seedRandom(seed);
+        processor.loadMemory(program);
+        faulted = false;
+    }
+
+    @Override
+    public void step(int cycles) {
+        if (faulted) {
+            return;
+        }
+        try {
+            run(cycles);
+        } catch (RuntimeException e) {
+            faulted = true;
+        }
+    }
+
+    protected void run(int cycles) {
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            processor.doCycle();
+        }
+    }
+
+    @Override
+    public void advanceTime(long ticks) {
+        processor.advanceTime(ticks);
+    }
+
+    @Override
+    public void setKeys(int keyMask) {
+        for (int key = 0; key < 16; key++) {
+            processor.setKey(key, (keyMask >>> key & 1) != 0);
+        }
+    }
+
+    @Override
+    public boolean isFaulted() {
+        return faulted;
+    }
+
+    @Override
+    public long stateHash() {
+        return faulted ? 0 : processor.getStateHash();
+    }
+
+    @Override
+    public MachineState capture() {
+        int[] registers = new int[16];
+        for (int x = 0; x < registers.length; x++) {
+            registers[x] = processor.getRegister(x);
+        }
+        int[] stack = new int[Math.min(processor.getStackPointer(), 16)];
+        for (int level = 0; level < stack.length; level++) {
+            stack[level] = processor.getStack(level);
+        }
+        long[] screen = new long[SCREEN_HEIGHT];
+        Processor.packScreen(processor.getScreen(), screen);
+        return new MachineState(faulted, processor.getProgramCounter(), processor.getIndexRegister(),
+                processor.getStackPointer(), processor.getDelayTimer(), processor.getSoundTimer(), registers, stack,
+                processor.getMemory().clone(), screen);
+    }
+}
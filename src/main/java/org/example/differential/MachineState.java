@@ -0,0 +1,61 @@
+package org.example.differential;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+
+/*
+ * A full copy of the observable machine state. The stack only holds the occupied levels and the screen is one
+ * long per row with pixel x at bit 63 - x.
+ */
+public record MachineState(boolean faulted, int programCounter, int indexRegister, int stackPointer,
+                           int delayTimer, int soundTimer, int[] registers, int[] stack, int[] memory,
+                           long[] screen) {
+    private static final int MAX_LISTED = 8;
+
+    // Every difference, empty when equal; two faulted machines are equal whatever they were left holding
+    public List<String> differences(MachineState other) {
+        List<String> differences = new ArrayList<>();
+        if (faulted || other.faulted) {
+            if (faulted != other.faulted) {
+                differences.add("faulted " + faulted + " != " + other.faulted);
+            }
+            return differences;
+        }
+        compare(differences, "PC", programCounter, other.programCounter, 3);
+        compare(differences, "I", indexRegister, other.indexRegister, 3);
+        compare(differences, "SP", stackPointer, other.stackPointer, 1);
+        compare(differences, "DT", delayTimer, other.delayTimer, 2);
+        compare(differences, "ST", soundTimer, other.soundTimer, 2);
+        for (int x = 0; x < registers.length; x++) {
+            compare(differences, String.format("V%X", x), registers[x], other.registers[x], 2);
+        }
+        if (!Arrays.equals(stack, other.stack)) {
+            differences.add("stack " + Arrays.toString(stack) + " != " + Arrays.toString(other.stack));
+        }
+        int listed = 0;
+        for (int address = 0; address < memory.length; address++) {
+            if (memory[address] != other.memory[address] && listed++ < MAX_LISTED) {
+                compare(differences, String.format("memory[0x%03X]", address), memory[address],
+                        other.memory[address], 2);
+            }
+        }
+        if (listed > MAX_LISTED) {
+            differences.add((listed - MAX_LISTED) + " more memory differences");
+        }
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            if (screen[y] != other.screen[y]) {
+                differences.add(String.format("screen row %d %016x != %016x", y, screen[y], other.screen[y]));
+            }
+        }
+        return differences;
+    }
+
+    private static void compare(List<String> differences, String name, int expected, int actual, int digits) {
+        if (expected != actual) {
+            differences.add(String.format("%s 0x%0" + digits + "X != 0x%0" + digits + "X", name, expected, actual));
+        }
+    }
+}
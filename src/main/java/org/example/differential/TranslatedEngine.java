@@ -0,0 +1,37 @@
+package org.example.differential;
+
+import org.example.aot.AotCompiler;
+import org.example.processor.Processor;
+import org.example.processor.Quirks;
+import org.example.processor.TranslatedProgram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// The ahead-of-time translation of the ROM, falling back to the interpreter wherever the translation does not reach
+public class TranslatedEngine extends InterpreterEngine {
+    private final AotCompiler compiler;
+    private TranslatedProgram translated;
+
+    public TranslatedEngine(AotCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    @Override
+    public void load(byte[] program, Quirks quirks, long seed) {
+        super.load(program, quirks, seed);
+        try {
+            translated = compiler.load(processor, program);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (translated == null) {
+            throw new IllegalStateException("No Java compiler available to translate the ROM");
+        }
+    }
+
+    @Override
+    protected void run(int cycles) {
+        translated.run(cycles);
+    }
+}
@@ -0,0 +1,544 @@
+package org.example.fleet;
+
+import org.example.processor.Quirks;
+import org.example.processor.RomImage;
+import org.example.processor.XorShift;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static org.example.processor.Processor.FIRST_PROG_INSTR_ADDRESS;
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+
+/*
+ * Runs many instances of one ROM in lockstep. State is kept in structure-of-arrays form: each field of
+ * every instance lives in one flat array indexed by lane (registers are laid out register-major, so all V0s
+ * are contiguous). A screen row is a single long with pixel x at bit 63 - x.
+ */
+public class Fleet {
+    private static final int MEMORY_SIZE = 4096;
+    private static final int STACK_SIZE = 16;
+    private static final int LANES_PER_TASK = 256;
+
+    private final int size;
+    private final ForkJoinPool pool;
+    private final boolean shiftUsesVY;
+    private final boolean jumpUsesVX;
+    private final boolean logicResetsVF;
+    private final boolean clipSprites;
+    private final int memoryIncrementFactor;
+    private final int memoryIncrementBias;
+
+    final int[] programCounter;
+    final int[] indexRegister;
+    final int[] stackPointer;
+    final int[] delayTimer;
+    final int[] soundTimer;
+    final int[] keys;
+    final int[] register;
+    final int[] stack;
+    final byte[] memory;
+    final long[] screen;
+    final long[] random;
+    final boolean[] faulted;
+
+    private final byte[] image = new byte[MEMORY_SIZE];
+    private long executedInstructions;
+    private double instructionsPerSecond;
+
+    // Usage: Fleet <rom.ch8> [instances] [frames]
+    public static void main(String[] args) throws IOException {
+        byte[] program = Files.readAllBytes(Path.of(args[0]));
+        int instances = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+        int frames = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+        Fleet fleet = new Fleet(instances, Quirks.DEFAULT);
+        fleet.load(program);
+        long start = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            fleet.step(12);
+            fleet.decrementTimers();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d instances, %d instructions in %.2fs: %.1f M instructions/s%n", instances,
+                fleet.getExecutedInstructions(), seconds, fleet.getExecutedInstructions() / seconds / 1e6);
+    }
+
+    public Fleet(int size, Quirks quirks) {
+        this(size, quirks, ForkJoinPool.commonPool());
+    }
+
+    public Fleet(int size, Quirks quirks, ForkJoinPool pool) {
+        this.size = size;
+        this.pool = pool;
+        shiftUsesVY = quirks.shiftUsesVY();
+        jumpUsesVX = quirks.jumpUsesVX();
+        logicResetsVF = quirks.logicResetsVF();
+        clipSprites = quirks.clipSprites();
+        memoryIncrementFactor = quirks.memoryIncrement() == Quirks.MemoryIncrement.NONE ? 0 : 1;
+        memoryIncrementBias = quirks.memoryIncrement() == Quirks.MemoryIncrement.X_PLUS_ONE ? 1 : 0;
+        programCounter = new int[size];
+        indexRegister = new int[size];
+        stackPointer = new int[size];
+        delayTimer = new int[size];
+        soundTimer = new int[size];
+        keys = new int[size];
+        register = new int[16 * size];
+        stack = new int[STACK_SIZE * size];
+        memory = new byte[MEMORY_SIZE * size];
+        screen = new long[SCREEN_HEIGHT * size];
+        random = new long[size];
+        faulted = new boolean[size];
+    }
+
+    public void load(byte[] program) {
+        RomImage romImage = RomImage.of(program);
+        for (int address = 0; address < MEMORY_SIZE; address++) {
+            image[address] = (byte) romImage.read(address);
+        }
+        for (int lane = 0; lane < size; lane++) {
+            reset(lane, lane);
+        }
+    }
+
+    public void reset(int lane, long seed) {
+        programCounter[lane] = FIRST_PROG_INSTR_ADDRESS;
+        indexRegister[lane] = 0;
+        stackPointer[lane] = 0;
+        delayTimer[lane] = 0;
+        soundTimer[lane] = 0;
+        keys[lane] = 0;
+        for (int x = 0; x < 16; x++) {
+            register[x * size + lane] = 0;
+        }
+        Arrays.fill(stack, lane * STACK_SIZE, (lane + 1) * STACK_SIZE, 0);
+        System.arraycopy(image, 0, memory, lane * MEMORY_SIZE, MEMORY_SIZE);
+        Arrays.fill(screen, lane * SCREEN_HEIGHT, (lane + 1) * SCREEN_HEIGHT, 0L);
+        random[lane] = XorShift.seed(seed);
+        faulted[lane] = false;
+    }
+
+    public long step(int steps) {
+        long start = System.nanoTime();
+        long executed = pool.invoke(new StepTask(0, size, steps));
+        long elapsed = System.nanoTime() - start;
+        executedInstructions += executed;
+        instructionsPerSecond = elapsed > 0 ? executed * 1e9 / elapsed : 0;
+        return executed;
+    }
+
+    public void decrementTimers() {
+        for (int lane = 0; lane < size; lane++) {
+            if (delayTimer[lane] > 0)
+                delayTimer[lane]--;
+            if (soundTimer[lane] > 0)
+                soundTimer[lane]--;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void setKeys(int lane, int keyMask) {
+        keys[lane] = keyMask & 0xFFFF;
+    }
+
+    public int getProgramCounter(int lane) {
+        return programCounter[lane];
+    }
+
+    public int getIndexRegister(int lane) {
+        return indexRegister[lane];
+    }
+
+    public int getStackPointer(int lane) {
+        return stackPointer[lane];
+    }
+
+    public int getStack(int lane, int level) {
+        return stack[lane * STACK_SIZE + level];
+    }
+
+    public int getDelayTimer(int lane) {
+        return delayTimer[lane];
+    }
+
+    public int getSoundTimer(int lane) {
+        return soundTimer[lane];
+    }
+
+    public int getRegister(int lane, int x) {
+        return register[x * size + lane];
+    }
+
+    public int getMemory(int lane, int address) {
+        return memory[lane * MEMORY_SIZE + address] & 0xFF;
+    }
+
+    public long getScreenRow(int lane, int y) {
+        return screen[lane * SCREEN_HEIGHT + y];
+    }
+
+    public boolean isFaulted(int lane) {
+        return faulted[lane];
+    }
+
+    public long getExecutedInstructions() {
+        return executedInstructions;
+    }
+
+    public double getInstructionsPerSecond() {
+        return instructionsPerSecond;
+    }
+
+    @SuppressWarnings("serial") // never serialised
+    private class StepTask extends RecursiveTask<Long> {
+        private final int from;
+        private final int to;
+        private final int steps;
+
+        StepTask(int from, int to, int steps) {
+            this.from = from;
+            this.to = to;
+            this.steps = steps;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= LANES_PER_TASK) {
+                return stepRange(from, to, steps);
+            }
+            int middle = (from + to) >>> 1;
+            StepTask left = new StepTask(from, middle, steps);
+            left.fork();
+            long right = new StepTask(middle, to, steps).compute();
+            return left.join() + right;
+        }
+    }
+
+    // Lanes are bucketed by the top nibble of their next opcode, so each bucket runs one handler in a tight loop
+    private long stepRange(int from, int to, int steps) {
+        int lanes = to - from;
+        int[] opcodes = new int[lanes];
+        int[] order = new int[lanes];
+        int[] groupStart = new int[17];
+        long executed = 0;
+        for (int step = 0; step < steps; step++) {
+            Arrays.fill(groupStart, 0);
+            for (int lane = from; lane < to; lane++) {
+                int opcode = fetch(lane);
+                opcodes[lane - from] = opcode;
+                if (opcode >= 0) {
+                    groupStart[(opcode >>> 12) + 1]++;
+                }
+            }
+            for (int group = 0; group < 16; group++) {
+                groupStart[group + 1] += groupStart[group];
+            }
+            int active = groupStart[16];
+            for (int lane = from; lane < to; lane++) {
+                int opcode = opcodes[lane - from];
+                if (opcode >= 0) {
+                    order[groupStart[opcode >>> 12]++] = lane;
+                }
+            }
+            int start = 0;
+            for (int group = 0; group < 16; group++) {
+                int end = groupStart[group];
+                if (end > start) {
+                    executeGroup(group, order, start, end, opcodes, from);
+                }
+                start = end;
+            }
+            executed += active;
+        }
+        return executed;
+    }
+
+    private int fetch(int lane) {
+        if (faulted[lane]) {
+            return -1;
+        }
+        int pc = programCounter[lane];
+        if (pc > MEMORY_SIZE - 2) {
+            faulted[lane] = true;
+            return -1;
+        }
+        int base = lane * MEMORY_SIZE;
+        programCounter[lane] = pc + 2;
+        return ((memory[base + pc] & 0xFF) << 8) | (memory[base + pc + 1] & 0xFF);
+    }
+
+    private void executeGroup(int group, int[] order, int start, int end, int[] opcodes, int from) {
+        switch (group) {
+            case 0x0 -> {
+                for (int i = start; i < end; i++) executeSystem(order[i], opcodes[order[i] - from]);
+            }
+            case 0x1 -> {
+                for (int i = start; i < end; i++) programCounter[order[i]] = opcodes[order[i] - from] & 0x0FFF;
+            }
+            case 0x2 -> {
+                for (int i = start; i < end; i++) call(order[i], opcodes[order[i] - from]);
+            }
+            case 0x3 -> {
+                for (int i = start; i < end; i++) {
+                    int lane = order[i], opcode = opcodes[lane - from];
+                    if (register[((opcode & 0x0F00) >>> 8) * size + lane] == (opcode & 0x00FF))
+                        programCounter[lane] += 2;
+                }
+            }
+            case 0x4 -> {
+                for (int i = start; i < end; i++) {
+                    int lane = order[i], opcode = opcodes[lane - from];
+                    if (register[((opcode & 0x0F00) >>> 8) * size + lane] != (opcode & 0x00FF))
+                        programCounter[lane] += 2;
+                }
+            }
+            case 0x5 -> {
+                for (int i = start; i < end; i++) {
+                    int lane = order[i], opcode = opcodes[lane - from];
+                    if ((opcode & 0x000F) == 0 && vx(lane, opcode) == vy(lane, opcode))
+                        programCounter[lane] += 2;
+                }
+            }
+            case 0x6 -> {
+                for (int i = start; i < end; i++) {
+                    int lane = order[i], opcode = opcodes[lane - from];
+                    register[((opcode & 0x0F00) >>> 8) * size + lane] = opcode & 0x00FF;
+                }
+            }
+            case 0x7 -> {
+                for (int i = start; i < end; i++) {
+                    int lane = order[i], opcode = opcodes[lane - from];
+                    int index = ((opcode & 0x0F00) >>> 8) * size + lane;
+                    register[index] = (register[index] + (opcode & 0x00FF)) & 0xFF;
+                }
+            }
+            case 0x8 -> {
+                for (int i = start; i < end; i++) executeArithmetic(order[i], opcodes[order[i] - from]);
+            }
+            case 0x9 -> {
+                for (int i = start; i < end; i++) {
+                    int lane = order[i], opcode = opcodes[lane - from];
+                    if ((opcode & 0x000F) == 0 && vx(lane, opcode) != vy(lane, opcode))
+                        programCounter[lane] += 2;
+                }
+            }
+            case 0xA -> {
+                for (int i = start; i < end; i++) indexRegister[order[i]] = opcodes[order[i] - from] & 0x0FFF;
+            }
+            case 0xB -> {
+                for (int i = start; i < end; i++) {
+                    int lane = order[i], opcode = opcodes[lane - from];
+                    int offset = jumpUsesVX ? vx(lane, opcode) : register[lane];
+                    programCounter[lane] = (offset + (opcode & 0x0FFF)) & 0xFFF;
+                }
+            }
+            case 0xC -> {
+                for (int i = start; i < end; i++) {
+                    int lane = order[i], opcode = opcodes[lane - from];
+                    random[lane] = XorShift.next(random[lane]);
+                    register[((opcode & 0x0F00) >>> 8) * size + lane] =
+                            XorShift.randomByte(random[lane]) & (opcode & 0x00FF);
+                }
+            }
+            case 0xD -> {
+                for (int i = start; i < end; i++) draw(order[i], opcodes[order[i] - from]);
+            }
+            case 0xE -> {
+                for (int i = start; i < end; i++) executeKey(order[i], opcodes[order[i] - from]);
+            }
+            case 0xF -> {
+                for (int i = start; i < end; i++) executeMisc(order[i], opcodes[order[i] - from]);
+            }
+        }
+    }
+
+    private int vx(int lane, int opcode) {
+        return register[((opcode & 0x0F00) >>> 8) * size + lane];
+    }
+
+    private int vy(int lane, int opcode) {
+        return register[((opcode & 0x00F0) >>> 4) * size + lane];
+    }
+
+    private void executeSystem(int lane, int opcode) {
+        switch (opcode) {
+            case 0x00E0 -> Arrays.fill(screen, lane * SCREEN_HEIGHT, (lane + 1) * SCREEN_HEIGHT, 0L);
+            case 0x00EE -> {
+                if (stackPointer[lane] == 0) {
+                    faulted[lane] = true;
+                    return;
+                }
+                programCounter[lane] = stack[lane * STACK_SIZE + --stackPointer[lane]];
+            }
+        }
+    }
+
+    private void call(int lane, int opcode) {
+        if (stackPointer[lane] == STACK_SIZE) {
+            faulted[lane] = true;
+            return;
+        }
+        stack[lane * STACK_SIZE + stackPointer[lane]++] = programCounter[lane];
+        programCounter[lane] = opcode & 0x0FFF;
+    }
+
+    private void executeArithmetic(int lane, int opcode) {
+        int x = ((opcode & 0x0F00) >>> 8) * size + lane;
+        int y = ((opcode & 0x00F0) >>> 4) * size + lane;
+        int flag = 0xF * size + lane;
+        int value;
+        switch (opcode & 0x000F) {
+            case 0x0 -> register[x] = register[y];
+            case 0x1 -> {
+                register[x] |= register[y];
+                if (logicResetsVF) register[flag] = 0;
+            }
+            case 0x2 -> {
+                register[x] &= register[y];
+                if (logicResetsVF) register[flag] = 0;
+            }
+            case 0x3 -> {
+                register[x] ^= register[y];
+                if (logicResetsVF) register[flag] = 0;
+            }
+            case 0x4 -> {
+                value = register[x] + register[y];
+                register[x] = value & 0xFF;
+                register[flag] = value > 0xFF ? 1 : 0;
+            }
+            case 0x5 -> {
+                value = register[x] - register[y];
+                register[x] = value & 0xFF;
+                register[flag] = value < 0 ? 0 : 1;
+            }
+            case 0x6 -> {
+                if (shiftUsesVY) {
+                    value = register[y];
+                    register[x] = value >>> 1;
+                    register[flag] = value & 0x01;
+                } else {
+                    value = register[x];
+                    register[x] = value >>> 1;
+                    register[flag] = value & 0x01;
+                }
+            }
+            case 0x7 -> {
+                value = register[y] - register[x];
+                register[x] = value & 0xFF;
+                register[flag] = value < 0 ? 0 : 1;
+            }
+            case 0xE -> {
+                if (shiftUsesVY) {
+                    value = register[y];
+                    register[x] = (value << 1) & 0xFF;
+                    register[flag] = (value & 0x80) >>> 7;
+                } else {
+                    value = register[x];
+                    register[x] = (value << 1) & 0xFF;
+                    register[flag] = (value & 0x80) >>> 7;
+                }
+            }
+        }
+    }
+
+    private void draw(int lane, int opcode) {
+        int rows = opcode & 0x000F;
+        int index = indexRegister[lane];
+        if (index + rows > MEMORY_SIZE) {
+            faulted[lane] = true;
+            return;
+        }
+        int xPos = vx(lane, opcode) % SCREEN_WIDTH;
+        int yPos = vy(lane, opcode) % SCREEN_HEIGHT;
+        int memoryBase = lane * MEMORY_SIZE + index;
+        int screenBase = lane * SCREEN_HEIGHT;
+        int collision = 0;
+        for (int row = 0; row < rows; row++) {
+            int y = yPos + row;
+            if (y >= SCREEN_HEIGHT) {
+                if (clipSprites) break;
+                y -= SCREEN_HEIGHT;
+            }
+            long sprite = (memory[memoryBase + row] & 0xFFL) << 56;
+            long bits = clipSprites ? sprite >>> xPos : Long.rotateRight(sprite, xPos);
+            long current = screen[screenBase + y];
+            if ((current & bits) != 0) collision = 1;
+            screen[screenBase + y] = current ^ bits;
+        }
+        register[0xF * size + lane] = collision;
+    }
+
+    private void executeKey(int lane, int opcode) {
+        int operation = opcode & 0x00FF;
+        if (operation != 0x9E && operation != 0xA1) {
+            return; // ignored like any other unknown opcode
+        }
+        int key = vx(lane, opcode);
+        if (key > 0xF) {
+            faulted[lane] = true;
+            return;
+        }
+        boolean pressed = (keys[lane] >>> key & 1) != 0;
+        if (pressed == (operation == 0x9E)) {
+            programCounter[lane] += 2;
+        }
+    }
+
+    private void executeMisc(int lane, int opcode) {
+        int xIndex = (opcode & 0x0F00) >>> 8;
+        int x = xIndex * size + lane;
+        int memoryBase = lane * MEMORY_SIZE;
+        int index = indexRegister[lane];
+        switch (opcode & 0x00FF) {
+            case 0x07 -> register[x] = delayTimer[lane];
+            case 0x0A -> {
+                if (keys[lane] == 0) {
+                    programCounter[lane] -= 2;
+                } else {
+                    register[x] = Integer.numberOfTrailingZeros(keys[lane]);
+                }
+            }
+            case 0x15 -> delayTimer[lane] = register[x];
+            case 0x18 -> soundTimer[lane] = register[x];
+            case 0x1E -> indexRegister[lane] = (index + register[x]) & 0xFFF;
+            case 0x29 -> indexRegister[lane] = register[x] * 5;
+            case 0x33 -> {
+                if (index + 3 > MEMORY_SIZE) {
+                    faulted[lane] = true;
+                    return;
+                }
+                int value = register[x];
+                memory[memoryBase + index] = (byte) (value / 100);
+                memory[memoryBase + index + 1] = (byte) (value / 10 % 10);
+                memory[memoryBase + index + 2] = (byte) (value % 10);
+            }
+            case 0x55 -> {
+                if (index + xIndex + 1 > MEMORY_SIZE) {
+                    faulted[lane] = true;
+                    return;
+                }
+                for (int r = 0; r <= xIndex; r++) {
+                    memory[memoryBase + index + r] = (byte) register[r * size + lane];
+                }
+                indexRegister[lane] = (index + (xIndex + memoryIncrementBias) * memoryIncrementFactor) & 0xFFF;
+            }
+            case 0x65 -> {
+                if (index + xIndex + 1 > MEMORY_SIZE) {
+                    faulted[lane] = true;
+                    return;
+                }
+                for (int r = 0; r <= xIndex; r++) {
+                    register[r * size + lane] = memory[memoryBase + index + r] & 0xFF;
+                }
+                indexRegister[lane] = (index + (xIndex + memoryIncrementBias) * memoryIncrementFactor) & 0xFFF;
+            }
+        }
+    }
+}
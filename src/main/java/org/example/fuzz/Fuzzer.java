@@ -0,0 +1,252 @@
+package org.example.fuzz;
+
+import org.example.processor.Processor;
+import org.example.processor.Quirks;
+import org.example.processor.RomImage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.example.processor.Processor.FIRST_PROG_INSTR_ADDRESS;
+
+public class Fuzzer {
+    private static final int CYCLES_PER_FRAME = 12;
+    private static final int INITIAL_FRAMES = 120;
+    private static final int MAX_FRAMES = 1200;
+    private static final int COVERAGE_WORDS = 4096 / 64;
+    private static final int SYNC_INTERVAL = 64;
+
+    public record Input(int[] frames, RomImage image) {
+    }
+
+    public record Crash(String reason, int programCounter, int opcode, Input input) {
+        @Override
+        public String toString() {
+            return String.format("%s at 0x%03x (opcode 0x%04x) after %d frames", reason, programCounter, opcode,
+                    input.frames().length);
+        }
+    }
+
+    private final Quirks quirks;
+    private final boolean mutateProgram;
+    private final long[] coverage = new long[COVERAGE_WORDS];
+    private final List<Input> corpus = new ArrayList<>();
+    private final Map<String, Crash> crashes = new LinkedHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+
+    /*
+     * Each worker fuzzes against its own copy of the coverage and corpus and only every SYNC_INTERVAL executions
+     * takes the fuzzer lock, to hand over what it found and pick up what the other workers found meanwhile.
+     */
+    private final class Worker {
+        final SplittableRandom random;
+        final Processor processor = new Processor(quirks);
+        final long[] covered = new long[COVERAGE_WORDS];
+        final List<Input> localCorpus = new ArrayList<>();
+        final List<Input> found = new ArrayList<>();
+        final Map<String, Crash> localCrashes = new LinkedHashMap<>();
+        int imported;
+
+        Worker(SplittableRandom random) {
+            this.random = random;
+            sync();
+        }
+
+        void run(long deadline, long budget) {
+            long[] localCoverage = new long[COVERAGE_WORDS];
+            int sinceSync = 0;
+            while (System.currentTimeMillis() < deadline && claimExecution(budget)) {
+                Input input = mutate(this, localCorpus.get(random.nextInt(localCorpus.size())));
+                Arrays.fill(localCoverage, 0L);
+                Crash crash = execute(processor, input, localCoverage);
+                record(input, localCoverage, crash);
+                if (++sinceSync == SYNC_INTERVAL) {
+                    sync();
+                    sinceSync = 0;
+                }
+            }
+            sync();
+        }
+
+        void record(Input input, long[] localCoverage, Crash crash) {
+            boolean isNew = false;
+            for (int i = 0; i < COVERAGE_WORDS; i++) {
+                if ((localCoverage[i] & ~covered[i]) != 0) {
+                    covered[i] |= localCoverage[i];
+                    isNew = true;
+                }
+            }
+            if (isNew) {
+                localCorpus.add(input);
+                found.add(input);
+            }
+            if (crash != null) {
+                localCrashes.putIfAbsent(crash.reason() + "@" + crash.programCounter(), crash);
+            }
+        }
+
+        void sync() {
+            synchronized (Fuzzer.this) {
+                localCorpus.addAll(corpus.subList(imported, corpus.size()));
+                corpus.addAll(found);
+                imported = corpus.size();
+                for (int i = 0; i < COVERAGE_WORDS; i++) {
+                    coverage[i] |= covered[i];
+                    covered[i] = coverage[i];
+                }
+                localCrashes.forEach(crashes::putIfAbsent);
+            }
+            found.clear();
+            localCrashes.clear();
+        }
+    }
+
+    public Fuzzer(byte[] program, Quirks quirks, boolean mutateProgram) {
+        this.quirks = quirks;
+        this.mutateProgram = mutateProgram;
+        corpus.add(new Input(new int[INITIAL_FRAMES], RomImage.of(program)));
+    }
+
+    public void run(int workers, long durationMillis, long seed) throws InterruptedException {
+        run(workers, System.currentTimeMillis() + durationMillis, Long.MAX_VALUE, seed);
+    }
+
+    // Stops after the given number of executions, whatever time they take
+    public void runExecutions(int workers, long executionBudget, long seed) throws InterruptedException {
+        run(workers, Long.MAX_VALUE, executionBudget, seed);
+    }
+
+    private void run(int workers, long deadline, long budget, long seed) throws InterruptedException {
+        Thread[] threads = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            Worker worker = new Worker(new SplittableRandom(seed + i));
+            threads[i] = new Thread(() -> worker.run(deadline, budget), "fuzzer-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private boolean claimExecution(long budget) {
+        long done;
+        do {
+            done = executions.get();
+            if (done >= budget) {
+                return false;
+            }
+        } while (!executions.compareAndSet(done, done + 1));
+        return true;
+    }
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    public synchronized int getCoveredAddresses() {
+        int covered = 0;
+        for (long word : coverage) {
+            covered += Long.bitCount(word);
+        }
+        return covered;
+    }
+
+    public synchronized int getCorpusSize() {
+        return corpus.size();
+    }
+
+    public synchronized List<Crash> getCrashes() {
+        return new ArrayList<>(crashes.values());
+    }
+
+    Crash execute(Processor processor, Input input, long[] localCoverage) {
+        processor.reset(input.image());
+        processor.seedRandom(0);
+        int[] frames = input.frames();
+        try {
+            for (int keyMask : frames) {
+                for (int key = 0; key < 16; key++) {
+                    processor.setKey(key, (keyMask >>> key & 1) != 0);
+                }
+                for (int cycle = 0; cycle < CYCLES_PER_FRAME; cycle++) {
+                    int programCounter = processor.getProgramCounter();
+                    localCoverage[programCounter >>> 6] |= 1L << programCounter;
+                    processor.doCycle();
+                    if (processor.getProgramCounter() == programCounter && processor.getOpcode() >>> 12 == 0x1) {
+                        return null; // jump to itself, the program has finished
+                    }
+                }
+                processor.advanceTime(1);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            return new Crash(describe(processor.getOpcode()), processor.getProgramCounter() - 2,
+                    processor.getOpcode(), input);
+        }
+        return null;
+    }
+
+    private static String describe(int opcode) {
+        if (opcode >>> 12 == 0x2)
+            return "stack overflow";
+        if (opcode == 0x00EE)
+            return "stack underflow";
+        if (opcode >>> 12 == 0xE)
+            return "key index out of range";
+        return "memory access out of range";
+    }
+
+    private Input mutate(Worker worker, Input parent) {
+        SplittableRandom random = worker.random;
+        int[] frames = parent.frames();
+        switch (random.nextInt(5)) {
+            case 0 -> {
+                frames = frames.clone();
+                frames[random.nextInt(frames.length)] ^= 1 << random.nextInt(16);
+            }
+            case 1 -> {
+                frames = frames.clone();
+                int start = random.nextInt(frames.length);
+                int end = Math.min(frames.length, start + 1 + random.nextInt(30));
+                Arrays.fill(frames, start, end, 1 << random.nextInt(16));
+            }
+            case 2 -> frames = Arrays.copyOf(frames, Math.min(MAX_FRAMES, frames.length + 1 + random.nextInt(60)));
+            case 3 -> frames = Arrays.copyOf(frames, Math.max(1, frames.length - 1 - random.nextInt(frames.length)));
+            case 4 -> {
+                int[] other = worker.localCorpus.get(random.nextInt(worker.localCorpus.size())).frames();
+                int split = random.nextInt(Math.min(frames.length, other.length));
+                frames = Arrays.copyOf(frames, other.length);
+                System.arraycopy(other, split, frames, split, other.length - split);
+            }
+        }
+        RomImage image = parent.image();
+        if (mutateProgram && random.nextInt(8) == 0 && image.getProgramLength() > 0) {
+            int address = FIRST_PROG_INSTR_ADDRESS + random.nextInt(image.getProgramLength());
+            image = image.patch(address, image.read(address) ^ 1 << random.nextInt(8));
+        }
+        return new Input(frames, image);
+    }
+
+    // Usage: Fuzzer <rom.ch8> [seconds] [workers] [--mutate-rom]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        byte[] program = Files.readAllBytes(Path.of(args[0]));
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 60;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        boolean mutateProgram = Arrays.asList(args).contains("--mutate-rom");
+        Fuzzer fuzzer = new Fuzzer(program, Quirks.DEFAULT, mutateProgram);
+        fuzzer.run(workers, seconds * 1000, System.nanoTime());
+        System.out.printf("%d executions (%.0f/s), %d addresses covered by a %d byte program, corpus of %d inputs%n",
+                fuzzer.getExecutions(), fuzzer.getExecutions() / (double) seconds, fuzzer.getCoveredAddresses(),
+                program.length, fuzzer.getCorpusSize());
+        for (Crash crash : fuzzer.getCrashes()) {
+            System.out.println(crash);
+        }
+    }
+}
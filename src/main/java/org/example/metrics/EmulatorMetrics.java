@@ -0,0 +1,190 @@
+package org.example.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Health counters of one emulator instance. Everything is recorded once per emulated frame by the thread driving
+ * the instance, never per instruction: the instruction count arrives as the frame's total, and allocation is the
+ * growth of that thread's allocated bytes across the frame. Key events only stamp the time; the latency is taken
+ * when the next frame starts, which is when the processor first runs with the new key state.
+ */
+public class EmulatorMetrics implements EmulatorMetricsMBean {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private record Sample(long nanos, long instructions, long frames, long allocatedBytes) {
+    }
+
+    private final String name;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder instructions = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final Histogram frameTime = new Histogram();
+    private final Histogram renderTime = new Histogram();
+    private final Histogram inputLatency = new Histogram();
+    private final AtomicLong pendingInputNanos = new AtomicLong();
+
+    private long frameStartAllocated; // only touched between startFrame and endFrame on the driving thread
+    private Sample previousSample;
+    private Sample currentSample;
+
+    public EmulatorMetrics(String name) {
+        this.name = name;
+        previousSample = currentSample = new Sample(startNanos, 0, 0, 0);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Called from input handlers, keeps the oldest key event not yet seen by the processor
+    public void keyEvent() {
+        pendingInputNanos.compareAndSet(0, System.nanoTime());
+    }
+
+    // Returns the start time to pass to endFrame
+    public long startFrame() {
+        long now = System.nanoTime();
+        long pending = pendingInputNanos.getAndSet(0);
+        if (pending != 0) {
+            inputLatency.record(now - pending);
+        }
+        frameStartAllocated = THREADS.getCurrentThreadAllocatedBytes();
+        return now;
+    }
+
+    public void endFrame(long startNanos, int executedInstructions) {
+        frameTime.record(System.nanoTime() - startNanos);
+        allocatedBytes.add(THREADS.getCurrentThreadAllocatedBytes() - frameStartAllocated);
+        instructions.add(executedInstructions);
+        frames.increment();
+    }
+
+    public void recordRender(long nanos) {
+        renderTime.record(nanos);
+    }
+
+    public void framesDropped(long count) {
+        droppedFrames.add(count);
+    }
+
+    public Histogram getFrameTime() {
+        return frameTime;
+    }
+
+    public Histogram getRenderTime() {
+        return renderTime;
+    }
+
+    public Histogram getInputLatency() {
+        return inputLatency;
+    }
+
+    @Override
+    public long getInstructions() {
+        return instructions.sum();
+    }
+
+    @Override
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    @Override
+    public long getDroppedFrames() {
+        return droppedFrames.sum();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public double getInstructionsPerSecond() {
+        Sample[] window = rateWindow();
+        return perSecond(window[1].instructions() - window[0].instructions(), window);
+    }
+
+    @Override
+    public double getFramesPerSecond() {
+        Sample[] window = rateWindow();
+        return perSecond(window[1].frames() - window[0].frames(), window);
+    }
+
+    @Override
+    public double getAllocatedBytesPerSecond() {
+        Sample[] window = rateWindow();
+        return perSecond(window[1].allocatedBytes() - window[0].allocatedBytes(), window);
+    }
+
+    // Emulated timer ticks (one per frame) against wall-clock ticks since start, positive when running ahead
+    @Override
+    public double getTimerDriftMillis() {
+        long elapsed = System.nanoTime() - startNanos;
+        return (getFrames() * FRAME_NANOS - elapsed) / 1e6;
+    }
+
+    @Override
+    public double getFrameTimeMillisP50() {
+        return frameTime.getValueAtPercentile(50) / 1e6;
+    }
+
+    @Override
+    public double getFrameTimeMillisP99() {
+        return frameTime.getValueAtPercentile(99) / 1e6;
+    }
+
+    @Override
+    public double getFrameTimeMillisP999() {
+        return frameTime.getValueAtPercentile(99.9) / 1e6;
+    }
+
+    @Override
+    public double getRenderTimeMillisP50() {
+        return renderTime.getValueAtPercentile(50) / 1e6;
+    }
+
+    @Override
+    public double getRenderTimeMillisP99() {
+        return renderTime.getValueAtPercentile(99) / 1e6;
+    }
+
+    @Override
+    public double getRenderTimeMillisP999() {
+        return renderTime.getValueAtPercentile(99.9) / 1e6;
+    }
+
+    @Override
+    public double getInputLatencyMillisP50() {
+        return inputLatency.getValueAtPercentile(50) / 1e6;
+    }
+
+    @Override
+    public double getInputLatencyMillisP99() {
+        return inputLatency.getValueAtPercentile(99) / 1e6;
+    }
+
+    // Rates cover the last completed window of at least a second, or the time since start before that
+    private synchronized Sample[] rateWindow() {
+        Sample now = new Sample(System.nanoTime(), getInstructions(), getFrames(), getAllocatedBytes());
+        if (now.nanos() - currentSample.nanos() >= RATE_WINDOW_NANOS) {
+            previousSample = currentSample;
+            currentSample = now;
+        }
+        return previousSample == currentSample
+                ? new Sample[]{previousSample, now}
+                : new Sample[]{previousSample, currentSample};
+    }
+
+    private static double perSecond(long delta, Sample[] window) {
+        long nanos = window[1].nanos() - window[0].nanos();
+        return nanos == 0 ? 0 : delta * 1e9 / nanos;
+    }
+}
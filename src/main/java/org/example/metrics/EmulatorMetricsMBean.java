@@ -0,0 +1,35 @@
+package org.example.metrics;
+
+public interface EmulatorMetricsMBean {
+    long getInstructions();
+
+    long getFrames();
+
+    long getDroppedFrames();
+
+    double getInstructionsPerSecond();
+
+    double getFramesPerSecond();
+
+    double getFrameTimeMillisP50();
+
+    double getFrameTimeMillisP99();
+
+    double getFrameTimeMillisP999();
+
+    double getRenderTimeMillisP50();
+
+    double getRenderTimeMillisP99();
+
+    double getRenderTimeMillisP999();
+
+    double getInputLatencyMillisP50();
+
+    double getInputLatencyMillisP99();
+
+    double getTimerDriftMillis();
+
+    long getAllocatedBytes();
+
+    double getAllocatedBytesPerSecond();
+}
@@ -0,0 +1,51 @@
+package org.example.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Live emulator instances, each also registered as org.example.chip8:type=Emulator,name=<name>
+public class MetricsRegistry {
+    private static final String DOMAIN = "org.example.chip8";
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private final Map<String, EmulatorMetrics> instances = new ConcurrentHashMap<>();
+
+    public EmulatorMetrics register(String name) {
+        EmulatorMetrics metrics = new EmulatorMetrics(name);
+        if (instances.putIfAbsent(name, metrics) != null) {
+            throw new IllegalArgumentException("Metrics already registered: " + name);
+        }
+        try {
+            server.registerMBean(metrics, objectName(name));
+        } catch (JMException e) {
+            instances.remove(name);
+            throw new IllegalStateException("Cannot register MBean for " + name, e);
+        }
+        return metrics;
+    }
+
+    public void unregister(EmulatorMetrics metrics) {
+        if (!instances.remove(metrics.getName(), metrics)) {
+            return;
+        }
+        try {
+            server.unregisterMBean(objectName(metrics.getName()));
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister MBean for " + metrics.getName(), e);
+        }
+    }
+
+    public List<EmulatorMetrics> getInstances() {
+        return new ArrayList<>(instances.values());
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Emulator,name=" + ObjectName.quote(name));
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+ * Publishes a registry in the Prometheus text format, either served over HTTP at /metrics or rewritten to a
+ * file every second (through a temporary file, so a collector never reads half a dump). Rates and drift are left
+ * to the collector: counters are totals and latencies are summaries with fixed quantiles.
+ */
+public class PrometheusExporter implements AutoCloseable {
+    private static final String PREFIX = "chip8_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final long FILE_PERIOD_MILLIS = 1000;
+
+    private final MetricsRegistry registry;
+    private HttpServer httpServer;
+    private ScheduledExecutorService fileWriter;
+
+    private PrometheusExporter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    // A port number (or host:port) serves HTTP, anything else is a file path
+    public static PrometheusExporter start(MetricsRegistry registry, String target) throws IOException {
+        PrometheusExporter exporter = new PrometheusExporter(registry);
+        if (target.matches("(.+:)?\\d+")) {
+            int separator = target.lastIndexOf(':');
+            InetSocketAddress address = separator < 0
+                    ? new InetSocketAddress("localhost", Integer.parseInt(target))
+                    : new InetSocketAddress(target.substring(0, separator),
+                    Integer.parseInt(target.substring(separator + 1)));
+            exporter.serve(address);
+        } else {
+            exporter.writePeriodically(Path.of(target));
+        }
+        return exporter;
+    }
+
+    private void serve(InetSocketAddress address) throws IOException {
+        httpServer = HttpServer.create(address, 0);
+        httpServer.createContext("/metrics", exchange -> {
+            byte[] body = format(registry).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        httpServer.start();
+    }
+
+    private void writePeriodically(Path path) {
+        fileWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        fileWriter.scheduleAtFixedRate(() -> {
+            try {
+                write(path);
+            } catch (UncheckedIOException e) {
+                System.err.println("Cannot write metrics: " + e.getMessage());
+            }
+        }, 0, FILE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void write(Path path) {
+        try {
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.writeString(temporary, format(registry));
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String format(MetricsRegistry registry) {
+        StringBuilder out = new StringBuilder();
+        List<EmulatorMetrics> instances = registry.getInstances();
+        header(out, "instructions_total", "counter", "Instructions executed.");
+        instances.forEach(m -> sample(out, "instructions_total", m, "", m.getInstructions()));
+        header(out, "frames_total", "counter", "Emulated 60 Hz frames.");
+        instances.forEach(m -> sample(out, "frames_total", m, "", m.getFrames()));
+        header(out, "dropped_frames_total", "counter", "Frames skipped because the host fell behind.");
+        instances.forEach(m -> sample(out, "dropped_frames_total", m, "", m.getDroppedFrames()));
+        header(out, "allocated_bytes_total", "counter", "Bytes allocated while emulating frames.");
+        instances.forEach(m -> sample(out, "allocated_bytes_total", m, "", m.getAllocatedBytes()));
+        header(out, "timer_drift_seconds", "gauge", "Emulated timer ticks minus wall-clock ticks since start.");
+        instances.forEach(m -> sample(out, "timer_drift_seconds", m, "", m.getTimerDriftMillis() / 1e3));
+        summary(out, "frame_seconds", "Time to emulate one frame.", instances, EmulatorMetrics::getFrameTime);
+        summary(out, "render_seconds", "Time to present one frame.", instances, EmulatorMetrics::getRenderTime);
+        summary(out, "input_latency_seconds", "Key event to the first frame that sees it.", instances,
+                EmulatorMetrics::getInputLatency);
+        return out.toString();
+    }
+
+    private static void summary(StringBuilder out, String name, String help, List<EmulatorMetrics> instances,
+                                Function<EmulatorMetrics, Histogram> histogram) {
+        header(out, name, "summary", help);
+        for (EmulatorMetrics metrics : instances) {
+            Histogram nanos = histogram.apply(metrics);
+            for (double quantile : QUANTILES) {
+                sample(out, name, metrics, ",quantile=\"" + quantile + "\"",
+                        nanos.getValueAtPercentile(quantile * 100) / 1e9);
+            }
+            sample(out, name + "_sum", metrics, "", nanos.getSum() / 1e9);
+            sample(out, name + "_count", metrics, "", nanos.getCount());
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, EmulatorMetrics metrics, String labels, double value) {
+        out.append(PREFIX).append(name).append("{instance=\"").append(escape(metrics.getName())).append('"')
+                .append(labels).append("} ");
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(String.format(Locale.ROOT, "%.9g", value));
+        }
+        out.append('\n');
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public void close() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        if (fileWriter != null) {
+            fileWriter.shutdownNow();
+        }
+    }
+}
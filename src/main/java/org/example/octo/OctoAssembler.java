@@ -0,0 +1,537 @@
+package org.example.octo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.example.processor.Processor.FIRST_PROG_INSTR_ADDRESS;
+
+/*
+ * Assembles the CHIP-8 subset of the Octo language into a ROM. Supported: labels and calls by name, :alias,
+ * :const, :macro, :org, :unpack, every CHIP-8 instruction in Octo syntax, if ... then, if ... begin ... else ...
+ * end, loop ... while ... again, the comparisons ==, !=, <, >, <=, >=, key and -key, and raw bytes. :breakpoint and
+ * :monitor are accepted and ignored; SUPER-CHIP and XO-CHIP instructions are rejected.
+ *
+ * Like Octo, the first two bytes are a jump to the label main. Labels may be used before they are defined, anywhere
+ * an address is expected; constants and aliases must be defined first. Errors are reported as an
+ * IllegalArgumentException naming the line.
+ */
+public class OctoAssembler {
+    private static final int MEMORY_SIZE = 4096;
+    private static final int VF = 0xF;
+
+    private record Token(String text, int line) {
+    }
+
+    private record Macro(List<String> parameters, List<Token> body) {
+    }
+
+    private enum FixupKind {ADDRESS, UNPACK_HIGH, UNPACK_LOW}
+
+    private record Fixup(int address, String label, int line, FixupKind kind) {
+    }
+
+    // A block waiting for its end: the jumps that leave it are patched once its end address is known
+    private record Block(boolean loop, int start, List<Integer> exits) {
+    }
+
+    // Skip instructions that skip the next one when the condition holds or fails, after any setup instructions
+    private record Condition(int[] setup, int skipIfTrue, int skipIfFalse) {
+    }
+
+    public record Assembly(byte[] program, Map<String, Integer> labels) {
+    }
+
+    private final Deque<Token> tokens = new ArrayDeque<>();
+    private final byte[] memory = new byte[MEMORY_SIZE];
+    private final Map<String, Integer> labels = new LinkedHashMap<>();
+    private final Map<String, Integer> aliases = new HashMap<>();
+    private final Map<String, Integer> constants = new HashMap<>();
+    private final Map<String, Macro> macros = new HashMap<>();
+    private final List<Fixup> fixups = new ArrayList<>();
+    private final Deque<Block> blocks = new ArrayDeque<>();
+    private int here = FIRST_PROG_INSTR_ADDRESS + 2;
+    private int end = here;
+    private int line;
+
+    private OctoAssembler(String source) {
+        String[] lines = source.replace("\uFEFF", "").split("\r?\n|\r");
+        for (int number = 0; number < lines.length; number++) {
+            String text = lines[number];
+            int comment = text.indexOf('#');
+            if (comment >= 0) {
+                text = text.substring(0, comment);
+            }
+            for (String word : text.trim().split("\\s+")) {
+                if (!word.isEmpty()) {
+                    tokens.add(new Token(word, number + 1));
+                }
+            }
+        }
+    }
+
+    public static Assembly assemble(String source) {
+        return new OctoAssembler(source).assemble();
+    }
+
+    public static Assembly assemble(Path path) throws IOException {
+        return assemble(Files.readString(path));
+    }
+
+    private Assembly assemble() {
+        while (!tokens.isEmpty()) {
+            statement();
+        }
+        if (!blocks.isEmpty()) {
+            throw error(blocks.peek().loop() ? "loop without again" : "begin without end");
+        }
+        Integer main = labels.get("main");
+        if (main == null) {
+            throw new IllegalArgumentException("No label called main");
+        }
+        write(FIRST_PROG_INSTR_ADDRESS, 0x1000 | main);
+        for (Fixup fixup : fixups) {
+            if (!labels.containsKey(fixup.label())) {
+                line = fixup.line();
+                throw error("Undefined name: " + fixup.label());
+            }
+            int address = labels.get(fixup.label());
+            switch (fixup.kind()) {
+                case ADDRESS -> write(fixup.address(), read(fixup.address()) | address);
+                case UNPACK_HIGH -> memory[fixup.address() + 1] |= (byte) (address >>> 8);
+                case UNPACK_LOW -> memory[fixup.address() + 1] = (byte) address;
+            }
+        }
+        return new Assembly(Arrays.copyOfRange(memory, FIRST_PROG_INSTR_ADDRESS, end), Map.copyOf(labels));
+    }
+
+    private Token next() {
+        Token token = tokens.poll();
+        if (token == null) {
+            throw error("Unexpected end of source");
+        }
+        line = token.line();
+        return token;
+    }
+
+    private String nextText() {
+        return next().text();
+    }
+
+    private void expect(String text) {
+        String actual = nextText();
+        if (!actual.equals(text)) {
+            throw error("Expected '" + text + "' but found '" + actual + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("line " + line + ": " + message);
+    }
+
+    private void statement() {
+        String word = nextText();
+        switch (word) {
+            case ":" -> define(nextText());
+            case ":alias" -> {
+                String name = nextText();
+                aliases.put(name, register(nextText()));
+            }
+            case ":const" -> {
+                String name = nextText();
+                constants.put(name, value(nextText()));
+            }
+            case ":macro" -> defineMacro();
+            case ":org" -> {
+                here = value(nextText());
+                checkAddress(here);
+            }
+            case ":unpack" -> unpack();
+            case ":breakpoint" -> nextText();
+            case ":monitor" -> {
+                nextText();
+                nextText();
+            }
+            case "clear" -> emit(0x00E0);
+            case "return", ";" -> emit(0x00EE);
+            case "jump" -> emitAddress(0x1000, nextText());
+            case "jump0" -> emitAddress(0xB000, nextText());
+            case "native" -> emitAddress(0x0000, nextText());
+            case "sprite" -> {
+                int x = register(nextText());
+                int y = register(nextText());
+                int height = value(nextText());
+                if (height < 1 || height > 15) {
+                    throw error("Sprite height must be 1 to 15: " + height);
+                }
+                emit(0xD000 | x << 8 | y << 4 | height);
+            }
+            case "bcd" -> emit(0xF033 | register(nextText()) << 8);
+            case "save" -> emit(0xF055 | register(nextText()) << 8);
+            case "load" -> emit(0xF065 | register(nextText()) << 8);
+            case "i" -> indexStatement();
+            case "delay" -> {
+                expect(":=");
+                emit(0xF015 | register(nextText()) << 8);
+            }
+            case "buzzer" -> {
+                expect(":=");
+                emit(0xF018 | register(nextText()) << 8);
+            }
+            case "if" -> ifStatement();
+            case "else" -> elseStatement();
+            case "end" -> endStatement();
+            case "loop" -> blocks.push(new Block(true, here, new ArrayList<>()));
+            case "while" -> whileStatement();
+            case "again" -> againStatement();
+            case "hires", "lores", "exit", "scroll-down", "scroll-left", "scroll-right", "scroll-up", "plane",
+                    "audio", "pitch", "saveflags", "loadflags", ":call", ":next", ":calc", ":byte", ":pointer",
+                    ":stringmode", ":assert" -> throw error("Not supported: " + word);
+            default -> {
+                if (isRegister(word)) {
+                    registerStatement(register(word));
+                } else if (macros.containsKey(word)) {
+                    expand(macros.get(word));
+                } else if (isNumber(word) || constants.containsKey(word)) {
+                    emitByte(value(word));
+                } else {
+                    emitAddress(0x2000, word);
+                }
+            }
+        }
+    }
+
+    private void define(String name) {
+        if (labels.containsKey(name)) {
+            throw error("Label defined twice: " + name);
+        }
+        labels.put(name, here);
+    }
+
+    private void defineMacro() {
+        String name = nextText();
+        List<String> parameters = new ArrayList<>();
+        for (String word = nextText(); !word.equals("{"); word = nextText()) {
+            parameters.add(word);
+        }
+        List<Token> body = new ArrayList<>();
+        int depth = 1;
+        while (true) {
+            Token token = next();
+            if (token.text().equals("{")) {
+                depth++;
+            } else if (token.text().equals("}") && --depth == 0) {
+                break;
+            }
+            body.add(token);
+        }
+        macros.put(name, new Macro(parameters, body));
+    }
+
+    private void expand(Macro macro) {
+        Map<String, String> arguments = new HashMap<>();
+        for (String parameter : macro.parameters()) {
+            arguments.put(parameter, nextText());
+        }
+        List<Token> body = macro.body();
+        for (int index = body.size() - 1; index >= 0; index--) {
+            Token token = body.get(index);
+            tokens.push(new Token(arguments.getOrDefault(token.text(), token.text()), token.line()));
+        }
+    }
+
+    // v0 := high nibble and high bits of the label, v1 := its low byte
+    private void unpack() {
+        int high = value(nextText());
+        String label = nextText();
+        if (labels.containsKey(label) || isNumber(label) || constants.containsKey(label)) {
+            int address = labels.containsKey(label) ? labels.get(label) : value(label);
+            emit(0x6000 | (high << 4 | address >>> 8) & 0xFF);
+            emit(0x6100 | address & 0xFF);
+            return;
+        }
+        fixups.add(new Fixup(here, label, line, FixupKind.UNPACK_HIGH));
+        emit(0x6000 | high << 4 & 0xFF);
+        fixups.add(new Fixup(here, label, line, FixupKind.UNPACK_LOW));
+        emit(0x6100);
+    }
+
+    private void indexStatement() {
+        String operator = nextText();
+        String operand = nextText();
+        if (operator.equals("+=")) {
+            emit(0xF01E | register(operand) << 8);
+        } else if (!operator.equals(":=")) {
+            throw error("Unknown operator for i: " + operator);
+        } else if (operand.equals("hex")) {
+            emit(0xF029 | register(nextText()) << 8);
+        } else if (operand.equals("bighex") || operand.equals("long")) {
+            throw error("Not supported: i := " + operand);
+        } else {
+            emitAddress(0xA000, operand);
+        }
+    }
+
+    private void registerStatement(int x) {
+        String operator = nextText();
+        String operand = nextText();
+        if (operator.equals(":=")) {
+            switch (operand) {
+                case "random" -> emit(0xC000 | x << 8 | byteValue(nextText()));
+                case "delay" -> emit(0xF007 | x << 8);
+                case "key" -> emit(0xF00A | x << 8);
+                default -> emit(isRegister(operand) ? 0x8000 | x << 8 | register(operand) << 4
+                        : 0x6000 | x << 8 | byteValue(operand));
+            }
+            return;
+        }
+        if (!isRegister(operand)) {
+            int value = byteValue(operand);
+            switch (operator) {
+                case "+=" -> emit(0x7000 | x << 8 | value);
+                case "-=" -> emit(0x7000 | x << 8 | -value & 0xFF);
+                default -> throw error("Operator " + operator + " needs a register: " + operand);
+            }
+            return;
+        }
+        int y = register(operand);
+        int operation = switch (operator) {
+            case "|=" -> 0x1;
+            case "&=" -> 0x2;
+            case "^=" -> 0x3;
+            case "+=" -> 0x4;
+            case "-=" -> 0x5;
+            case ">>=" -> 0x6;
+            case "=-" -> 0x7;
+            case "<<=" -> 0xE;
+            default -> throw error("Unknown operator: " + operator);
+        };
+        emit(0x8000 | x << 8 | y << 4 | operation);
+    }
+
+    private Condition condition() {
+        int x = register(nextText());
+        String operator = nextText();
+        if (operator.equals("key")) {
+            return new Condition(new int[0], 0xE09E | x << 8, 0xE0A1 | x << 8);
+        }
+        if (operator.equals("-key")) {
+            return new Condition(new int[0], 0xE0A1 | x << 8, 0xE09E | x << 8);
+        }
+        String operand = nextText();
+        boolean isRegister = isRegister(operand);
+        int y = isRegister ? register(operand) : byteValue(operand);
+        switch (operator) {
+            case "==", "!=" -> {
+                int equal = isRegister ? 0x5000 | x << 8 | y << 4 : 0x3000 | x << 8 | y;
+                int notEqual = isRegister ? 0x9000 | x << 8 | y << 4 : 0x4000 | x << 8 | y;
+                return operator.equals("==") ? new Condition(new int[0], equal, notEqual)
+                        : new Condition(new int[0], notEqual, equal);
+            }
+            case "<", ">=" -> {
+                // vf := x - y leaves the no-borrow flag, 1 when x >= y
+                int[] setup = isRegister ? new int[]{0x8F00 | x << 4, 0x8F05 | y << 4}
+                        : new int[]{0x6F00 | y, 0x8F07 | x << 4};
+                return flagCondition(setup, operator.equals(">="));
+            }
+            case ">", "<=" -> {
+                // vf := y - x, 1 when y >= x
+                int[] setup = isRegister ? new int[]{0x8F00 | y << 4, 0x8F05 | x << 4}
+                        : new int[]{0x6F00 | y, 0x8F05 | x << 4};
+                return flagCondition(setup, operator.equals("<="));
+            }
+            default -> throw error("Unknown comparison: " + operator);
+        }
+    }
+
+    private static Condition flagCondition(int[] setup, boolean whenSet) {
+        int set = 0x3F01;
+        int clear = 0x4F01;
+        return whenSet ? new Condition(setup, set, clear) : new Condition(setup, clear, set);
+    }
+
+    private void ifStatement() {
+        Condition condition = condition();
+        for (int instruction : condition.setup()) {
+            emit(instruction);
+        }
+        String keyword = nextText();
+        if (keyword.equals("then")) {
+            emit(condition.skipIfFalse());
+        } else if (keyword.equals("begin")) {
+            emit(condition.skipIfTrue());
+            List<Integer> exits = new ArrayList<>();
+            exits.add(here);
+            emit(0x1000);
+            blocks.push(new Block(false, here, exits));
+        } else {
+            throw error("Expected then or begin but found '" + keyword + "'");
+        }
+    }
+
+    private void elseStatement() {
+        Block block = blocks.poll();
+        if (block == null || block.loop()) {
+            throw error("else without begin");
+        }
+        int jump = here;
+        emit(0x1000);
+        patchJumps(block.exits(), here);
+        List<Integer> exits = new ArrayList<>();
+        exits.add(jump);
+        blocks.push(new Block(false, block.start(), exits));
+    }
+
+    private void endStatement() {
+        Block block = blocks.poll();
+        if (block == null || block.loop()) {
+            throw error("end without begin");
+        }
+        patchJumps(block.exits(), here);
+    }
+
+    private void whileStatement() {
+        Block loop = innermostLoop();
+        Condition condition = condition();
+        for (int instruction : condition.setup()) {
+            emit(instruction);
+        }
+        emit(condition.skipIfTrue());
+        loop.exits().add(here);
+        emit(0x1000);
+    }
+
+    private void againStatement() {
+        Block block = blocks.poll();
+        if (block == null || !block.loop()) {
+            throw error("again without loop");
+        }
+        emit(0x1000 | block.start());
+        patchJumps(block.exits(), here);
+    }
+
+    private Block innermostLoop() {
+        for (Block block : blocks) {
+            if (block.loop()) {
+                return block;
+            }
+        }
+        throw error("while outside a loop");
+    }
+
+    private void patchJumps(List<Integer> jumps, int target) {
+        for (int jump : jumps) {
+            write(jump, 0x1000 | target);
+        }
+    }
+
+    private void emitAddress(int opcode, String operand) {
+        if (labels.containsKey(operand)) {
+            emit(opcode | labels.get(operand));
+        } else if (isNumber(operand) || constants.containsKey(operand)) {
+            int address = value(operand);
+            checkAddress(address);
+            emit(opcode | address);
+        } else if (isRegister(operand) || operand.startsWith(":")) {
+            throw error("Expected an address but found '" + operand + "'");
+        } else {
+            fixups.add(new Fixup(here, operand, line, FixupKind.ADDRESS));
+            emit(opcode);
+        }
+    }
+
+    private void emit(int opcode) {
+        checkAddress(here + 1);
+        write(here, opcode);
+        here += 2;
+        end = Math.max(end, here);
+    }
+
+    private void emitByte(int value) {
+        checkAddress(here);
+        memory[here++] = (byte) byteValue(value);
+        end = Math.max(end, here);
+    }
+
+    private void write(int address, int opcode) {
+        memory[address] = (byte) (opcode >>> 8);
+        memory[address + 1] = (byte) opcode;
+    }
+
+    private int read(int address) {
+        return (memory[address] & 0xFF) << 8 | memory[address + 1] & 0xFF;
+    }
+
+    private void checkAddress(int address) {
+        if (address < FIRST_PROG_INSTR_ADDRESS || address >= MEMORY_SIZE) {
+            throw error(String.format("Address 0x%X is outside program memory", address));
+        }
+    }
+
+    private boolean isRegister(String word) {
+        return aliases.containsKey(word) || word.length() == 2 && Character.toLowerCase(word.charAt(0)) == 'v'
+                && Character.digit(word.charAt(1), 16) >= 0;
+    }
+
+    private int register(String word) {
+        Integer alias = aliases.get(word);
+        if (alias != null) {
+            return alias;
+        }
+        if (!isRegister(word)) {
+            throw error("Expected a register but found '" + word + "'");
+        }
+        return Character.digit(word.charAt(1), 16);
+    }
+
+    private static boolean isNumber(String word) {
+        return word.matches("-?(0[xX][0-9a-fA-F]+|0[bB][01]+|[0-9]+)");
+    }
+
+    private int value(String word) {
+        Integer constant = constants.get(word);
+        if (constant != null) {
+            return constant;
+        }
+        if (!isNumber(word)) {
+            throw error("Expected a number but found '" + word + "'");
+        }
+        boolean negative = word.startsWith("-");
+        String digits = (negative ? word.substring(1) : word).toLowerCase(Locale.ROOT);
+        int value = digits.startsWith("0x") ? Integer.parseInt(digits.substring(2), 16)
+                : digits.startsWith("0b") ? Integer.parseInt(digits.substring(2), 2) : Integer.parseInt(digits);
+        return negative ? -value : value;
+    }
+
+    private int byteValue(String word) {
+        return byteValue(value(word));
+    }
+
+    private int byteValue(int value) {
+        if (value < -128 || value > 255) {
+            throw error("Value does not fit in a byte: " + value);
+        }
+        return value & 0xFF;
+    }
+
+    // Usage: OctoAssembler <source.8o> [rom.ch8]
+    public static void main(String[] args) throws IOException {
+        Path source = Path.of(args[0]);
+        Path target = args.length > 1 ? Path.of(args[1])
+                : source.resolveSibling(source.getFileName().toString().replaceFirst("\\.8o$", "") + ".ch8");
+        long start = System.nanoTime();
+        Assembly assembly = assemble(source);
+        Files.write(target, assembly.program());
+        System.out.printf("%s: %d bytes, %d labels in %.1f ms%n", target, assembly.program().length,
+                assembly.labels().size(), (System.nanoTime() - start) / 1e6);
+    }
+}
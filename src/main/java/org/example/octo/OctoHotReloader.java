@@ -0,0 +1,161 @@
+package org.example.octo;
+
+import org.example.processor.Processor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static org.example.processor.Processor.FIRST_PROG_INSTR_ADDRESS;
+
+/*
+ * Reassembles an Octo source whenever it is saved and patches the result into a running processor. Assembly
+ * happens on a watcher thread; the patch is handed to the executor, which must run it on the thread that runs the
+ * processor. A source that does not assemble is reported to the log and the old program keeps running.
+ *
+ * Addresses the processor holds into the program (the program counter, return addresses and the index register) are
+ * moved to the same offset from the same label in the new program, which keeps a loop running where it was while
+ * the code around it changes. When one of them cannot be moved, because its label is gone or it would land past
+ * the end of the new program, the processor is restarted with the new program instead.
+ */
+public class OctoHotReloader implements Closeable {
+    // Editors save in several writes, the last of which is usually within a few milliseconds of the first
+    private static final long QUIET_MILLIS = 20;
+    private static final int UNMAPPED = -1;
+    private static final int STACK_DEPTH = 16;
+
+    private final Path source;
+    private final Processor processor;
+    private final Executor emulationThread;
+    private final Consumer<String> log;
+    private final WatchService watchService;
+    private final Thread thread;
+    private OctoAssembler.Assembly current;
+
+    public OctoHotReloader(Path source, OctoAssembler.Assembly initial, Processor processor, Executor emulationThread,
+                           Consumer<String> log) throws IOException {
+        this.source = source.toAbsolutePath();
+        this.current = initial;
+        this.processor = processor;
+        this.emulationThread = emulationThread;
+        this.log = log;
+        watchService = FileSystems.getDefault().newWatchService();
+        this.source.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        thread = new Thread(this::watch, "octo-hot-reloader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                do {
+                    changed |= concernsSource(key);
+                    key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private boolean concernsSource(WatchKey key) {
+        boolean concerns = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            concerns |= source.getFileName().equals(event.context());
+        }
+        key.reset();
+        return concerns;
+    }
+
+    private void reload() {
+        long start = System.nanoTime();
+        OctoAssembler.Assembly assembly;
+        try {
+            assembly = OctoAssembler.assemble(source);
+        } catch (IOException | IllegalArgumentException e) {
+            log.accept(source.getFileName() + ": " + e.getMessage());
+            return;
+        }
+        emulationThread.execute(() -> {
+            boolean kept = apply(assembly);
+            log.accept(String.format("%s: reloaded %d bytes in %.1f ms, %s", source.getFileName(),
+                    assembly.program().length, (System.nanoTime() - start) / 1e6,
+                    kept ? "state kept" : "restarted"));
+        });
+    }
+
+    // Must run on the emulation thread; true when the processor kept its state, false when it was restarted
+    boolean apply(OctoAssembler.Assembly assembly) {
+        IntUnaryOperator relocate = relocation(current, assembly);
+        int previousLength = current.program().length;
+        current = assembly;
+        boolean mappable = relocate.applyAsInt(processor.getProgramCounter()) != UNMAPPED
+                && relocate.applyAsInt(processor.getIndexRegister()) != UNMAPPED;
+        for (int level = 0; level < Math.min(processor.getStackPointer(), STACK_DEPTH) && mappable; level++) {
+            mappable = relocate.applyAsInt(processor.getStack(level)) != UNMAPPED;
+        }
+        if (!mappable) {
+            processor.init();
+            processor.loadMemory(assembly.program());
+            return false;
+        }
+        processor.patchProgram(assembly.program(), previousLength, relocate);
+        return true;
+    }
+
+    /*
+     * Moves an address inside the previous program to the same offset from the nearest label at or before it. The
+     * jump to main at 0x200 counts as a label of its own. Addresses outside the previous program are not moved.
+     */
+    static IntUnaryOperator relocation(OctoAssembler.Assembly previous, OctoAssembler.Assembly next) {
+        int previousEnd = FIRST_PROG_INSTR_ADDRESS + previous.program().length;
+        int nextEnd = FIRST_PROG_INSTR_ADDRESS + next.program().length;
+        TreeMap<Integer, String> anchors = new TreeMap<>();
+        for (Map.Entry<String, Integer> label : previous.labels().entrySet()) {
+            // Of several labels at one address, prefer one that survived
+            if (!anchors.containsKey(label.getValue()) || next.labels().containsKey(label.getKey())) {
+                anchors.put(label.getValue(), label.getKey());
+            }
+        }
+        return address -> {
+            if (address < FIRST_PROG_INSTR_ADDRESS || address >= previousEnd) {
+                return address;
+            }
+            Map.Entry<Integer, String> anchor = anchors.floorEntry(address);
+            if (anchor == null) {
+                return address < FIRST_PROG_INSTR_ADDRESS + 2 ? address : UNMAPPED;
+            }
+            Integer moved = next.labels().get(anchor.getValue());
+            if (moved == null) {
+                return UNMAPPED;
+            }
+            int relocated = moved + address - anchor.getKey();
+            return relocated < nextEnd ? relocated : UNMAPPED;
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,343 @@
+package org.example.processor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Breakpoints, watchpoints and stepping around a processor. Breakpoints and watched addresses are bits in
+ * 4096-bit sets, so a check before an instruction is a couple of shifts; drivers skip the check entirely while
+ * nothing is armed. Watchpoints stop before an FX33 or FX55 that would write a watched byte. Step over and step
+ * out arm a one-shot stop at the return address and stack depth, so they work however long the subroutine runs
+ * and keep timers and input going when driven frame by frame.
+ */
+public class Debugger {
+    private static final int WORDS = RomImage.MEMORY_SIZE / 64;
+    private static final int DISASSEMBLY_LINES = 5;
+
+    public enum StopReason {
+        PAUSED, BREAKPOINT, WATCHPOINT, STEP, RETURN, LIMIT
+    }
+
+    public record Stop(StopReason reason, int programCounter, String detail) {
+        @Override
+        public String toString() {
+            return String.format("%s at 0x%03X%s", reason, programCounter, detail.isEmpty() ? "" : ": " + detail);
+        }
+    }
+
+    public record Condition(int source, String operator, int value) {
+        private static final String[] SOURCES = {
+                "V0", "V1", "V2", "V3", "V4", "V5", "V6", "V7", "V8", "V9", "VA", "VB", "VC", "VD", "VE", "VF",
+                "I", "DT", "ST"
+        };
+
+        // <V0-VF | I | DT | ST> <== | != | < | <= | > | >=> <decimal or 0x hex>
+        public static Condition parse(String text) {
+            String[] parts = text.trim().split("\\s+");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Expected '<register> <operator> <value>': " + text);
+            }
+            int source = -1;
+            for (int i = 0; i < SOURCES.length; i++) {
+                if (SOURCES[i].equalsIgnoreCase(parts[0])) {
+                    source = i;
+                }
+            }
+            if (source < 0) {
+                throw new IllegalArgumentException("Unknown register: " + parts[0]);
+            }
+            if (!parts[1].matches("==|!=|<=?|>=?")) {
+                throw new IllegalArgumentException("Unknown operator: " + parts[1]);
+            }
+            return new Condition(source, parts[1], parseNumber(parts[2]));
+        }
+
+        public boolean test(Processor processor) {
+            int actual = switch (source) {
+                case 16 -> processor.indexRegister;
+                case 17 -> processor.getDelayTimer();
+                case 18 -> processor.getSoundTimer();
+                default -> processor.register[source];
+            };
+            return switch (operator) {
+                case "==" -> actual == value;
+                case "!=" -> actual != value;
+                case "<" -> actual < value;
+                case "<=" -> actual <= value;
+                case ">" -> actual > value;
+                default -> actual >= value;
+            };
+        }
+
+        @Override
+        public String toString() {
+            return SOURCES[source] + " " + operator + " 0x" + Integer.toHexString(value).toUpperCase();
+        }
+    }
+
+    private final Processor processor;
+    private final long[] breakpoints = new long[WORDS];
+    private final long[] watchpoints = new long[WORDS];
+    private final Map<Integer, Condition> conditions = new HashMap<>();
+    private int armedBreakpoints;
+    private int armedWatchpoints;
+
+    private boolean paused;
+    private boolean resuming;
+    private boolean stepOnce;
+    private int returnAddress = -1;
+    private int returnDepth;
+    private Stop lastStop;
+
+    public Debugger(Processor processor) {
+        this.processor = processor;
+    }
+
+    public static int parseNumber(String text) {
+        String lower = text.toLowerCase();
+        return lower.startsWith("0x") ? Integer.parseInt(lower.substring(2), 16) : Integer.parseInt(lower);
+    }
+
+    public Processor getProcessor() {
+        return processor;
+    }
+
+    public void addBreakpoint(int address) {
+        addBreakpoint(address, null);
+    }
+
+    public void addBreakpoint(int address, Condition condition) {
+        checkAddress(address);
+        if (set(breakpoints, address)) {
+            armedBreakpoints++;
+        }
+        if (condition != null) {
+            conditions.put(address, condition);
+        } else {
+            conditions.remove(address);
+        }
+    }
+
+    public void removeBreakpoint(int address) {
+        checkAddress(address);
+        if (clear(breakpoints, address)) {
+            armedBreakpoints--;
+        }
+        conditions.remove(address);
+    }
+
+    public boolean hasBreakpoint(int address) {
+        return address >= 0 && address < RomImage.MEMORY_SIZE && (breakpoints[address >>> 6] & 1L << address) != 0;
+    }
+
+    public void addWatchpoint(int from, int to) {
+        checkRange(from, to);
+        for (int address = from; address <= to; address++) {
+            if (set(watchpoints, address)) {
+                armedWatchpoints++;
+            }
+        }
+    }
+
+    public void removeWatchpoint(int from, int to) {
+        checkRange(from, to);
+        for (int address = from; address <= to; address++) {
+            if (clear(watchpoints, address)) {
+                armedWatchpoints--;
+            }
+        }
+    }
+
+    private static void checkAddress(int address) {
+        if (address < 0 || address >= RomImage.MEMORY_SIZE) {
+            throw new IllegalArgumentException(String.format("Address out of memory: 0x%X", address));
+        }
+    }
+
+    private static void checkRange(int from, int to) {
+        checkAddress(from);
+        checkAddress(to);
+        if (from > to) {
+            throw new IllegalArgumentException(String.format("Empty range: 0x%03X-0x%03X", from, to));
+        }
+    }
+
+    private static boolean set(long[] bits, int address) {
+        long mask = 1L << address;
+        boolean wasSet = (bits[address >>> 6] & mask) != 0;
+        bits[address >>> 6] |= mask;
+        return !wasSet;
+    }
+
+    private static boolean clear(long[] bits, int address) {
+        long mask = 1L << address;
+        boolean wasSet = (bits[address >>> 6] & mask) != 0;
+        bits[address >>> 6] &= ~mask;
+        return wasSet;
+    }
+
+    // Whether a driver has to call beforeCycle, false means the processor can run untouched
+    public boolean isActive() {
+        return paused || armedBreakpoints > 0 || armedWatchpoints > 0 || stepOnce || returnAddress >= 0;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public Stop getLastStop() {
+        return lastStop;
+    }
+
+    public void pause() {
+        stop(new Stop(StopReason.PAUSED, processor.programCounter, ""));
+    }
+
+    public void resume() {
+        paused = false;
+        resuming = true;
+    }
+
+    // Executes exactly one instruction without touching the timers
+    public Stop step() {
+        processor.doCycle();
+        return stop(new Stop(StopReason.STEP, processor.programCounter, ""));
+    }
+
+    public void stepOver() {
+        if (opcodeAt(processor.programCounter) >>> 12 == 0x2) {
+            returnAddress = processor.programCounter + 2;
+            returnDepth = processor.stackPointer;
+        } else {
+            stepOnce = true;
+        }
+        resume();
+    }
+
+    public boolean isInSubroutine() {
+        return processor.stackPointer > 0;
+    }
+
+    public void stepOut() {
+        if (processor.stackPointer == 0) {
+            throw new IllegalStateException("Not inside a subroutine");
+        }
+        returnAddress = processor.stack[processor.stackPointer - 1];
+        returnDepth = processor.stackPointer - 1;
+        resume();
+    }
+
+    // Runs without timers until something stops the processor or the cycle limit is reached
+    public Stop run(long maxCycles) {
+        resume();
+        for (long cycle = 0; cycle < maxCycles; cycle++) {
+            if (!beforeCycle()) {
+                return lastStop;
+            }
+            processor.doCycle();
+        }
+        return stop(new Stop(StopReason.LIMIT, processor.programCounter, ""));
+    }
+
+    // Called before every instruction while active, returns false when the processor must stop
+    boolean beforeCycle() {
+        if (paused) {
+            return false;
+        }
+        if (resuming) {
+            resuming = false; // leave the instruction we stopped at
+            return true;
+        }
+        int programCounter = processor.programCounter;
+        if (stepOnce) {
+            stepOnce = false;
+            stop(new Stop(StopReason.STEP, programCounter, ""));
+            return false;
+        }
+        if (programCounter == returnAddress && processor.stackPointer == returnDepth) {
+            returnAddress = -1;
+            stop(new Stop(StopReason.RETURN, programCounter, ""));
+            return false;
+        }
+        if (armedBreakpoints > 0 && hasBreakpoint(programCounter)) {
+            Condition condition = conditions.get(programCounter);
+            if (condition == null || condition.test(processor)) {
+                stop(new Stop(StopReason.BREAKPOINT, programCounter,
+                        condition == null ? "" : condition.toString()));
+                return false;
+            }
+        }
+        if (armedWatchpoints > 0) {
+            String write = watchedWrite(programCounter);
+            if (write != null) {
+                stop(new Stop(StopReason.WATCHPOINT, programCounter, write));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String watchedWrite(int programCounter) {
+        int opcode = opcodeAt(programCounter);
+        int length;
+        if ((opcode & 0xF0FF) == 0xF033) {
+            length = 3;
+        } else if ((opcode & 0xF0FF) == 0xF055) {
+            length = ((opcode & 0x0F00) >>> 8) + 1;
+        } else {
+            return null;
+        }
+        int from = processor.indexRegister;
+        for (int address = from; address < from + length && address < RomImage.MEMORY_SIZE; address++) {
+            if ((watchpoints[address >>> 6] & 1L << address) != 0) {
+                return String.format("%s writes 0x%03X", Disassembler.format(opcode), address);
+            }
+        }
+        return null;
+    }
+
+    private Stop stop(Stop stop) {
+        paused = true;
+        stepOnce = false;
+        returnAddress = -1;
+        lastStop = stop;
+        return stop;
+    }
+
+    // An instruction would not fit at the last address, nor outside memory, so there is none
+    private int opcodeAt(int address) {
+        if (address < 0 || address + 1 >= RomImage.MEMORY_SIZE) {
+            return 0;
+        }
+        return (processor.memory[address] << 8) | processor.memory[address + 1];
+    }
+
+    // Registers, stack and the instructions around the program counter, as shown by the front ends
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        if (lastStop != null && paused) {
+            text.append(lastStop).append('\n');
+        }
+        for (int x = 0; x < 16; x++) {
+            text.append(String.format("V%X=%02X%s", x, processor.register[x], x % 8 == 7 ? "\n" : " "));
+        }
+        text.append(String.format("I=%03X SP=%X DT=%02X ST=%02X", processor.indexRegister, processor.stackPointer,
+                processor.getDelayTimer(), processor.getSoundTimer()));
+        for (int i = processor.stackPointer - 1; i >= 0; i--) {
+            text.append(String.format(" %03X", processor.stack[i]));
+        }
+        text.append('\n');
+        int programCounter = processor.programCounter;
+        int start = Math.max(0, programCounter - 2 * (DISASSEMBLY_LINES / 2));
+        for (int address = start; address < start + 2 * DISASSEMBLY_LINES; address += 2) {
+            if (address + 1 >= RomImage.MEMORY_SIZE) {
+                break;
+            }
+            text.append(address == programCounter ? '>' : ' ')
+                    .append(hasBreakpoint(address) ? '*' : ' ')
+                    .append(String.format("%03X: %04X  %s%n", address, opcodeAt(address),
+                            Disassembler.format(opcodeAt(address))));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.processor;
+
+public class Disassembler {
+    private Disassembler() {
+    }
+
+    public static String format(int opcode) {
+        int x = (opcode & 0x0F00) >>> 8;
+        int y = (opcode & 0x00F0) >>> 4;
+        int n = opcode & 0x000F;
+        int nn = opcode & 0x00FF;
+        int nnn = opcode & 0x0FFF;
+        switch (opcode) {
+            case 0x00E0:
+                return "CLS";
+            case 0x00EE:
+                return "RET";
+        }
+        return switch (opcode >>> 12) {
+            case 0x0 -> String.format("SYS 0x%03X", nnn);
+            case 0x1 -> String.format("JP 0x%03X", nnn);
+            case 0x2 -> String.format("CALL 0x%03X", nnn);
+            case 0x3 -> String.format("SE V%X, 0x%02X", x, nn);
+            case 0x4 -> String.format("SNE V%X, 0x%02X", x, nn);
+            case 0x5 -> n == 0 ? String.format("SE V%X, V%X", x, y) : data(opcode);
+            case 0x6 -> String.format("LD V%X, 0x%02X", x, nn);
+            case 0x7 -> String.format("ADD V%X, 0x%02X", x, nn);
+            case 0x8 -> switch (n) {
+                case 0x0 -> String.format("LD V%X, V%X", x, y);
+                case 0x1 -> String.format("OR V%X, V%X", x, y);
+                case 0x2 -> String.format("AND V%X, V%X", x, y);
+                case 0x3 -> String.format("XOR V%X, V%X", x, y);
+                case 0x4 -> String.format("ADD V%X, V%X", x, y);
+                case 0x5 -> String.format("SUB V%X, V%X", x, y);
+                case 0x6 -> String.format("SHR V%X, V%X", x, y);
+                case 0x7 -> String.format("SUBN V%X, V%X", x, y);
+                case 0xE -> String.format("SHL V%X, V%X", x, y);
+                default -> data(opcode);
+            };
+            case 0x9 -> n == 0 ? String.format("SNE V%X, V%X", x, y) : data(opcode);
+            case 0xA -> String.format("LD I, 0x%03X", nnn);
+            case 0xB -> String.format("JP V0, 0x%03X", nnn);
+            case 0xC -> String.format("RND V%X, 0x%02X", x, nn);
+            case 0xD -> String.format("DRW V%X, V%X, %d", x, y, n);
+            case 0xE -> nn == 0x9E ? String.format("SKP V%X", x)
+                    : nn == 0xA1 ? String.format("SKNP V%X", x) : data(opcode);
+            default -> switch (nn) {
+                case 0x07 -> String.format("LD V%X, DT", x);
+                case 0x0A -> String.format("LD V%X, K", x);
+                case 0x15 -> String.format("LD DT, V%X", x);
+                case 0x18 -> String.format("LD ST, V%X", x);
+                case 0x1E -> String.format("ADD I, V%X", x);
+                case 0x29 -> String.format("LD F, V%X", x);
+                case 0x33 -> String.format("LD B, V%X", x);
+                case 0x55 -> String.format("LD [I], V%X", x);
+                case 0x65 -> String.format("LD V%X, [I]", x);
+                default -> data(opcode);
+            };
+        };
+    }
+
+    private static String data(int opcode) {
+        return String.format("DW 0x%04X", opcode);
+    }
+}
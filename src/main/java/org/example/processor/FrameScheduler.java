@@ -0,0 +1,117 @@
+package org.example.processor;
+
+/*
+ * Runs a processor in whole 60 Hz frames: a fixed number of instructions, then one tick of the timer clock, so that the
+ * caller can present the screen exactly once per frame. With a budget set, the instructions per frame are lowered
+ * whenever the measured cost of a frame would exceed it and raised back towards the configured count once the host
+ * catches up, trading emulated speed for a steady frame rate.
+ */
+public class FrameScheduler {
+    public static final int FRAMES_PER_SECOND = 60;
+    public static final long FRAME_NANOS = 1_000_000_000L / FRAMES_PER_SECOND;
+
+    private static final double SMOOTHING = 0.125;
+
+    private final Processor processor;
+    private final int cyclesPerFrame;
+    private final boolean displayWait;
+    private long budgetNanos;
+    private int effectiveCyclesPerFrame;
+    private double instructionNanos;
+    private long lastFrameNanos;
+    private long totalFrameNanos;
+    private long frames;
+    private Debugger debugger;
+
+    public FrameScheduler(Processor processor, int cyclesPerFrame) {
+        if (cyclesPerFrame < 1) {
+            throw new IllegalArgumentException("Cycles per frame must be positive: " + cyclesPerFrame);
+        }
+        this.processor = processor;
+        this.cyclesPerFrame = cyclesPerFrame;
+        this.effectiveCyclesPerFrame = cyclesPerFrame;
+        this.displayWait = processor.getQuirks().displayWait();
+    }
+
+    public static int cyclesPerFrame(int clockHz) {
+        return Math.max(1, Math.round(clockHz / (float) FRAMES_PER_SECOND));
+    }
+
+    // Zero disables auto-tuning and always runs the configured number of instructions
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+        if (budgetNanos == 0) {
+            effectiveCyclesPerFrame = cyclesPerFrame;
+        }
+    }
+
+    public void setDebugger(Debugger debugger) {
+        this.debugger = debugger;
+    }
+
+    // Executes one frame, advances the timers by a tick and returns the instruction count
+    public int runFrame() {
+        if (debugger != null && debugger.isActive()) {
+            return runDebuggedFrame();
+        }
+        long start = System.nanoTime();
+        int limit = effectiveCyclesPerFrame;
+        int executed = 0;
+        while (executed < limit) {
+            processor.doCycle();
+            executed++;
+            if (displayWait && processor.opcode >>> 12 == 0xD) {
+                break; // drawing waits for the next vertical blank
+            }
+        }
+        processor.advanceTime(1);
+        lastFrameNanos = System.nanoTime() - start;
+        totalFrameNanos += lastFrameNanos;
+        frames++;
+        if (budgetNanos > 0) {
+            tune(executed);
+        }
+        return executed;
+    }
+
+    // While stopped nothing runs, not even the timers, so the machine stays frozen
+    private int runDebuggedFrame() {
+        if (debugger.isPaused()) {
+            return 0;
+        }
+        int executed = 0;
+        while (executed < effectiveCyclesPerFrame && debugger.beforeCycle()) {
+            processor.doCycle();
+            executed++;
+            if (displayWait && processor.opcode >>> 12 == 0xD) {
+                break;
+            }
+        }
+        processor.advanceTime(1);
+        frames++;
+        return executed;
+    }
+
+    private void tune(int executed) {
+        double sample = lastFrameNanos / (double) executed;
+        instructionNanos = instructionNanos == 0 ? sample : instructionNanos + (sample - instructionNanos) * SMOOTHING;
+        long affordable = (long) (budgetNanos / instructionNanos);
+        effectiveCyclesPerFrame = (int) Math.max(1, Math.min(cyclesPerFrame, affordable));
+    }
+
+    public int getCyclesPerFrame() {
+        return effectiveCyclesPerFrame;
+    }
+
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    public long getAverageFrameNanos() {
+        return frames == 0 ? 0 : totalFrameNanos / frames;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+}
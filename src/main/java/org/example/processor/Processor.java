@@ -1,13 +1,14 @@
 package org.example.processor;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
 
 public class Processor {
     public static final int FIRST_PROG_INSTR_ADDRESS = 0x200;
     public static final int SCREEN_WIDTH = 64;
     public static final int SCREEN_HEIGHT = 32;
 
-    private static final int[] FONTS = new int[]{
+    static final int[] FONTS = new int[]{
             0xF0, 0x90, 0x90, 0x90, 0xF0, // 0
             0x20, 0x60, 0x20, 0x20, 0x70, // 1
             0xF0, 0x10, 0xF0, 0x80, 0xF0, // 2
@@ -26,49 +27,128 @@ public class Processor {
             0xF0, 0x80, 0xF0, 0x80, 0x80  // F
     };
 
-    private static final Random randomGenerator = new Random();
+    static final long[] PIXEL_KEYS = new long[SCREEN_WIDTH * SCREEN_HEIGHT];
+
+    static {
+        long state = XorShift.seed(0x5EED);
+        for (int pixel = 0; pixel < PIXEL_KEYS.length; pixel++) {
+            state = XorShift.next(state);
+            PIXEL_KEYS[pixel] = state;
+        }
+    }
+
+    private final Quirks quirks;
+    private final Runnable shiftRight;
+    private final Runnable shiftLeft;
+    private final Runnable jumpWithOffset;
+    private final Runnable logicFlag;
+    private final Runnable drawSprite;
+    private final int memoryIncrementFactor;
+    private final int memoryIncrementBias;
 
     boolean isScreenUpdated;
+    long screenHash;
+    long memoryHash;
+    long randomState = XorShift.seed(System.nanoTime());
 
-    int delayTimer;
-    int soundTimer;
+    /*
+     * The timers are not counted down tick by tick: each keeps the value last written and the time it was written
+     * at, in 60 Hz ticks of the timer clock, and its current value is worked out when it is read. Running a frame
+     * only moves the emulated clock forward, and any number of idle frames can be skipped in one step.
+     */
+    int delayValue;
+    int soundValue;
+    long delaySetAt;
+    long soundSetAt;
+    long emulatedTicks;
+    long wallClockOrigin;
+    private TimerClock timerClock = TimerClock.EMULATED;
 
     int programCounter;
     int stackPointer;
     int indexRegister;
     int opcode;
 
-    int[] register;
-    int[] stack;
-    int[] memory;
-    boolean[][] screen;
-    boolean[] keys;
+    final int[] register = new int[16];
+    final int[] stack = new int[16];
+    final int[] memory = new int[RomImage.MEMORY_SIZE];
+    final boolean[][] screen = new boolean[SCREEN_WIDTH][SCREEN_HEIGHT];
+    final boolean[] keys = new boolean[16];
 
     public Processor() {
+        this(Quirks.DEFAULT);
+    }
+
+    public Processor(Quirks quirks) {
+        this.quirks = quirks;
+        shiftRight = quirks.shiftUsesVY() ? this::shiftRightVY : this::shiftRightVX;
+        shiftLeft = quirks.shiftUsesVY() ? this::shiftLeftVY : this::shiftLeftVX;
+        jumpWithOffset = quirks.jumpUsesVX() ? this::jumpWithOffsetVX : this::jumpWithOffsetV0;
+        logicFlag = quirks.logicResetsVF() ? this::resetFlag : () -> {};
+        drawSprite = quirks.clipSprites() ? this::drawSpriteClipped : this::drawSpriteWrapped;
+        memoryIncrementFactor = quirks.memoryIncrement().factor;
+        memoryIncrementBias = quirks.memoryIncrement().bias;
         init();
     }
 
     public void init() {
-        isScreenUpdated = true;
-        delayTimer = 0x0;
-        soundTimer = 0x0;
+        resetState();
+        Arrays.fill(memory, 0);
+        memoryHash = StateHash.EMPTY_MEMORY;
+    }
+
+    public void reset(RomImage image) {
+        resetState();
+        System.arraycopy(image.memory, 0, memory, 0, memory.length);
+        memoryHash = image.memoryHash;
+    }
+
+    private void resetState() {
+        emulatedTicks = 0;
+        wallClockOrigin = timerClock == TimerClock.WALL_CLOCK ? System.nanoTime() : 0;
+        delayValue = 0x0;
+        soundValue = 0x0;
+        delaySetAt = 0;
+        soundSetAt = 0;
         programCounter = FIRST_PROG_INSTR_ADDRESS;
         stackPointer = 0x0;
         indexRegister = 0x0;
         opcode = 0x0;
-        register = new int[16];
-        stack = new int[16];
-        memory = new int[4096];
-        screen = new boolean[SCREEN_WIDTH][SCREEN_HEIGHT];
-        keys = new boolean[16];
+        Arrays.fill(register, 0);
+        Arrays.fill(stack, 0);
+        Arrays.fill(keys, false);
         cleanScreen();
     }
 
+    // Loads fonts and program into memory, clearing the rest of it, without touching registers, timers or screen
     public void loadMemory(byte[] program) {
-        System.arraycopy(FONTS, 0, memory, 0, FONTS.length);
+        RomImage image = RomImage.cached(program);
+        System.arraycopy(image.memory, 0, memory, 0, memory.length);
+        memoryHash = image.memoryHash;
+    }
+
+    /*
+     * Replaces the running program without a restart: the new program is written at 0x200, whatever is left of the
+     * previous one is cleared, and the program counter, the return addresses on the stack and an index register
+     * pointing into the program are moved with relocate. Registers, timers, the screen and memory outside the
+     * program are kept.
+     */
+    public void patchProgram(byte[] program, int previousLength, IntUnaryOperator relocate) {
+        int previousEnd = Math.min(memory.length, FIRST_PROG_INSTR_ADDRESS + previousLength);
+        for (int address = FIRST_PROG_INSTR_ADDRESS + program.length; address < previousEnd; address++) {
+            memory[address] = 0;
+        }
         for (int index = 0; index < program.length; index++) {
             memory[FIRST_PROG_INSTR_ADDRESS + index] = program[index] & 0xFF;
         }
+        memoryHash = StateHash.memory(memory);
+        programCounter = relocate.applyAsInt(programCounter);
+        for (int level = 0; level < Math.min(stackPointer, stack.length); level++) {
+            stack[level] = relocate.applyAsInt(stack[level]);
+        }
+        if (indexRegister >= FIRST_PROG_INSTR_ADDRESS && indexRegister < previousEnd) {
+            indexRegister = relocate.applyAsInt(indexRegister);
+        }
     }
 
     public void doCycle() {
@@ -76,6 +156,18 @@ public class Processor {
         decodeInstruction();
     }
 
+    public Quirks getQuirks() {
+        return quirks;
+    }
+
+    public int getProgramCounter() {
+        return programCounter;
+    }
+
+    public int getOpcode() {
+        return opcode;
+    }
+
     public int[] getMemory() {
         return memory;
     }
@@ -84,33 +176,115 @@ public class Processor {
         return screen;
     }
 
+    // One long per row, the leftmost pixel in the highest bit
+    public static void packScreen(boolean[][] screen, long[] rows) {
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            long row = 0;
+            for (int x = 0; x < SCREEN_WIDTH; x++) {
+                row = (row << 1) | (screen[x][y] ? 1 : 0);
+            }
+            rows[y] = row;
+        }
+    }
+
     public boolean isScreenUpdated() {
         boolean result = isScreenUpdated;
         isScreenUpdated = false;
         return result;
     }
 
+    // Zobrist hash of the lit pixels, updated as pixels are toggled
+    public long getScreenHash() {
+        return screenHash;
+    }
+
+    // Hash of the whole machine state; the memory and screen parts are kept up to date as they are written
+    public long getStateHash() {
+        return StateHash.combine(programCounter, indexRegister, stackPointer, getDelayTimer(), getSoundTimer(),
+                register, stack, memoryHash, screenHash);
+    }
+
+    public int getIndexRegister() {
+        return indexRegister;
+    }
+
+    public int getStackPointer() {
+        return stackPointer;
+    }
+
+    public int getRegister(int x) {
+        return register[x];
+    }
+
+    public int getStack(int level) {
+        return stack[level];
+    }
+
+    public int getDelayTimer() {
+        return timerValue(delayValue, delaySetAt);
+    }
+
+    public int getSoundTimer() {
+        return timerValue(soundValue, soundSetAt);
+    }
+
+    void setDelayTimer(int value) {
+        delayValue = value;
+        delaySetAt = now();
+    }
+
+    void setSoundTimer(int value) {
+        soundValue = value;
+        soundSetAt = now();
+    }
+
+    private int timerValue(int value, long setAt) {
+        long elapsed = now() - setAt;
+        return elapsed >= value ? 0 : value - (int) elapsed;
+    }
+
+    // The current time of the timer clock in 60 Hz ticks
+    long now() {
+        return timerClock == TimerClock.EMULATED ? emulatedTicks
+                : (System.nanoTime() - wallClockOrigin) / TimerClock.TICK_NANOS;
+    }
+
+    public TimerClock getTimerClock() {
+        return timerClock;
+    }
+
+    // Switching keeps the current timer values, which then count down against the new clock
+    public void setTimerClock(TimerClock timerClock) {
+        int delay = getDelayTimer();
+        int sound = getSoundTimer();
+        this.timerClock = timerClock;
+        wallClockOrigin = System.nanoTime();
+        setDelayTimer(delay);
+        setSoundTimer(sound);
+    }
+
+    public void seedRandom(long seed) {
+        randomState = XorShift.seed(seed);
+    }
+
     public void setKey(int index, boolean value) {
         keys[index] = value;
     }
 
     public boolean isSound() {
-        return soundTimer > 0;
+        return getSoundTimer() > 0;
     }
 
-    public void decrementTimers() {
-        if (delayTimer > 0)
-            delayTimer--;
-        if (soundTimer > 0)
-            soundTimer--;
+    // Moves the emulated clock forward; with the wall clock the timers follow the host instead and this does nothing
+    public void advanceTime(long ticks) {
+        emulatedTicks += ticks;
     }
 
     void cleanScreen() {
-        for (int y = 0; y < SCREEN_HEIGHT; y++) {
-            for (int x = 0; x < SCREEN_WIDTH; x++) {
-                screen[x][y] = false;
-            }
+        for (boolean[] column : screen) {
+            Arrays.fill(column, false);
         }
+        screenHash = 0;
         isScreenUpdated = true;
     }
 
@@ -120,7 +294,7 @@ public class Processor {
     }
 
     void decodeInstruction() {
-        int x, y;
+        int x, y, result;
         switch (opcode) {
             case 0x00E0:
                 cleanScreen();
@@ -142,7 +316,7 @@ public class Processor {
                 return;
             case 0xF007:
                 x = (opcode & 0x0F00) >>> 8;
-                register[x] = delayTimer;
+                register[x] = getDelayTimer();
                 return;
             case 0xF00A:
                 x = (opcode & 0x0F00) >>> 8;
@@ -156,11 +330,11 @@ public class Processor {
                 return;
             case 0xF015:
                 x = (opcode & 0x0F00) >>> 8;
-                delayTimer = register[x];
+                setDelayTimer(register[x]);
                 return;
             case 0xF018:
                 x = (opcode & 0x0F00) >>> 8;
-                soundTimer = register[x];
+                setSoundTimer(register[x]);
                 return;
             case 0xF01E:
                 x = (opcode & 0x0F00) >>> 8;
@@ -172,17 +346,23 @@ public class Processor {
                 return;
             case 0xF033:
                 x = (opcode & 0x0F00) >>> 8;
+                unhashMemory(indexRegister, 3);
                 memory[indexRegister] = register[x] / 100;
                 memory[indexRegister + 1] = (register[x] - memory[indexRegister] * 100) / 10;
                 memory[indexRegister + 2] = register[x] - memory[indexRegister] * 100 - memory[indexRegister + 1] * 10;
+                hashMemory(indexRegister, 3);
                 return;
             case 0xF055:
                 x = (opcode & 0x0F00) >>> 8;
+                unhashMemory(indexRegister, x + 1);
                 System.arraycopy(register, 0, memory, indexRegister, x + 1);
+                hashMemory(indexRegister, x + 1);
+                indexRegister = (indexRegister + (x + memoryIncrementBias) * memoryIncrementFactor) & 0xFFF;
                 return;
             case 0xF065:
                 x = (opcode & 0x0F00) >>> 8;
                 System.arraycopy(memory, indexRegister, register, 0, x + 1);
+                indexRegister = (indexRegister + (x + memoryIncrementBias) * memoryIncrementFactor) & 0xFFF;
                 return;
         }
         switch (opcode & 0xF00F) {
@@ -201,55 +381,47 @@ public class Processor {
                 x = (opcode & 0x0F00) >>> 8;
                 y = (opcode & 0x00F0) >>> 4;
                 register[x] |= register[y];
+                logicFlag.run();
                 return;
             case 0x8002:
                 x = (opcode & 0x0F00) >>> 8;
                 y = (opcode & 0x00F0) >>> 4;
                 register[x] &= register[y];
+                logicFlag.run();
                 return;
             case 0x8003:
                 x = (opcode & 0x0F00) >>> 8;
                 y = (opcode & 0x00F0) >>> 4;
                 register[x] ^= register[y];
+                logicFlag.run();
                 return;
+            // The flag is written after the result, so that with VF as VX it is the flag that remains
             case 0x8004:
                 x = (opcode & 0x0F00) >>> 8;
                 y = (opcode & 0x00F0) >>> 4;
-                register[x] = register[x] + register[y];
-                if (register[x] > 0xFF) {
-                    register[x] &= 0xFF;
-                    register[0xF] = 1;
-                }
+                result = register[x] + register[y];
+                register[x] = result & 0xFF;
+                register[0xF] = result > 0xFF ? 1 : 0;
                 return;
             case 0x8005:
                 x = (opcode & 0x0F00) >>> 8;
                 y = (opcode & 0x00F0) >>> 4;
-                register[x] = register[x] - register[y];
-                register[0xF] = 1;
-                if (register[x] < 0x0) {
-                    register[x] &= 0xFF;
-                    register[0xF] = 0;
-                }
+                result = register[x] - register[y];
+                register[x] = result & 0xFF;
+                register[0xF] = result < 0x0 ? 0 : 1;
                 return;
             case 0x8006:
-                x = (opcode & 0x0F00) >>> 8;
-                register[0xF] = register[x] & 0x01;
-                register[x] = (register[x] / 2) & 0xFF;
+                shiftRight.run();
                 return;
             case 0x8007:
                 x = (opcode & 0x0F00) >>> 8;
                 y = (opcode & 0x00F0) >>> 4;
-                register[x] = register[y] - register[x];
-                register[0xF] = 1;
-                if (register[x] < 0x0) {
-                    register[x] &= 0xFF;
-                    register[0xF] = 0;
-                }
+                result = register[y] - register[x];
+                register[x] = result & 0xFF;
+                register[0xF] = result < 0x0 ? 0 : 1;
                 return;
             case 0x800E:
-                x = (opcode & 0x0F00) >>> 8;
-                register[0xF] = (register[x] & 0x80) >>> 7;
-                register[x] = (register[x] * 2) & 0xFF;
+                shiftLeft.run();
                 return;
             case 0x9000:
                 x = (opcode & 0x0F00) >>> 8;
@@ -288,34 +460,119 @@ public class Processor {
                 indexRegister = opcode & 0x0FFF;
                 return;
             case 0xB000:
-                programCounter = (register[0x0] + (opcode & 0x0FFF)) & 0xFFF;
+                jumpWithOffset.run();
                 return;
             case 0xC000:
                 x = (opcode & 0x0F00) >>> 8;
-                register[x] = randomGenerator.nextInt(0xFF + 1) & (opcode & 0x00FF);
+                randomState = XorShift.next(randomState);
+                register[x] = XorShift.randomByte(randomState) & (opcode & 0x00FF);
                 return;
             case 0xD000:
-                int xPos = register[(opcode & 0x0F00) >>> 8] % SCREEN_WIDTH;
-                int yPos = register[(opcode & 0x00F0) >>> 4] % SCREEN_HEIGHT;
-                register[0xF] = 0;
-                for (int row = 0; row < (opcode & 0x000F); row++) {
-                    int spriteByte = memory[indexRegister + row];
-                    int yOffset = (yPos + row) % SCREEN_HEIGHT;
-                    for (int column = 0; column < 8; column++) {
-                        int color = spriteByte & (0x1 << (7 - column));
-                        if (color > 0) {
-                            int xOffset = (xPos + column) % SCREEN_WIDTH;
-                            if (screen[xOffset][yOffset]) {
-                                screen[xOffset][yOffset] = false;
-                                register[0xF] = 1;
-                            } else {
-                                screen[xOffset][yOffset] = true;
-                            }
-                        }
+                drawSprite.run();
+        }
+    }
+
+    private void shiftRightVX() {
+        int x = (opcode & 0x0F00) >>> 8;
+        int value = register[x];
+        register[x] = value >>> 1;
+        register[0xF] = value & 0x01;
+    }
+
+    private void shiftRightVY() {
+        int x = (opcode & 0x0F00) >>> 8;
+        int value = register[(opcode & 0x00F0) >>> 4];
+        register[x] = value >>> 1;
+        register[0xF] = value & 0x01;
+    }
+
+    private void shiftLeftVX() {
+        int x = (opcode & 0x0F00) >>> 8;
+        int value = register[x];
+        register[x] = (value << 1) & 0xFF;
+        register[0xF] = (value & 0x80) >>> 7;
+    }
+
+    private void shiftLeftVY() {
+        int x = (opcode & 0x0F00) >>> 8;
+        int value = register[(opcode & 0x00F0) >>> 4];
+        register[x] = (value << 1) & 0xFF;
+        register[0xF] = (value & 0x80) >>> 7;
+    }
+
+    private void jumpWithOffsetV0() {
+        programCounter = (register[0x0] + (opcode & 0x0FFF)) & 0xFFF;
+    }
+
+    private void jumpWithOffsetVX() {
+        programCounter = (register[(opcode & 0x0F00) >>> 8] + (opcode & 0x0FFF)) & 0xFFF;
+    }
+
+    // A BCD write running off the end of memory leaves the hash stale, but the processor has faulted by then
+    private void unhashMemory(int from, int length) {
+        for (int address = from; address < Math.min(from + length, memory.length); address++) {
+            memoryHash -= StateHash.memory(address, memory[address]);
+        }
+    }
+
+    private void hashMemory(int from, int length) {
+        for (int address = from; address < Math.min(from + length, memory.length); address++) {
+            memoryHash += StateHash.memory(address, memory[address]);
+        }
+    }
+
+    private void resetFlag() {
+        register[0xF] = 0;
+    }
+
+    private void drawSpriteWrapped() {
+        int xPos = register[(opcode & 0x0F00) >>> 8] % SCREEN_WIDTH;
+        int yPos = register[(opcode & 0x00F0) >>> 4] % SCREEN_HEIGHT;
+        register[0xF] = 0;
+        for (int row = 0; row < (opcode & 0x000F); row++) {
+            int spriteByte = memory[indexRegister + row];
+            int yOffset = (yPos + row) % SCREEN_HEIGHT;
+            for (int column = 0; column < 8; column++) {
+                int color = spriteByte & (0x1 << (7 - column));
+                if (color > 0) {
+                    int xOffset = (xPos + column) % SCREEN_WIDTH;
+                    screenHash ^= PIXEL_KEYS[xOffset * SCREEN_HEIGHT + yOffset];
+                    if (screen[xOffset][yOffset]) {
+                        screen[xOffset][yOffset] = false;
+                        register[0xF] = 1;
+                    } else {
+                        screen[xOffset][yOffset] = true;
+                    }
+                }
+            }
+        }
+        isScreenUpdated = true;
+    }
+
+    private void drawSpriteClipped() {
+        int xPos = register[(opcode & 0x0F00) >>> 8] % SCREEN_WIDTH;
+        int yPos = register[(opcode & 0x00F0) >>> 4] % SCREEN_HEIGHT;
+        int rows = Math.min(opcode & 0x000F, SCREEN_HEIGHT - yPos);
+        int columns = Math.min(8, SCREEN_WIDTH - xPos);
+        register[0xF] = 0;
+        for (int row = 0; row < rows; row++) {
+            int spriteByte = memory[indexRegister + row];
+            int yOffset = yPos + row;
+            for (int column = 0; column < columns; column++) {
+                int color = spriteByte & (0x1 << (7 - column));
+                if (color > 0) {
+                    int xOffset = xPos + column;
+                    screenHash ^= PIXEL_KEYS[xOffset * SCREEN_HEIGHT + yOffset];
+                    if (screen[xOffset][yOffset]) {
+                        screen[xOffset][yOffset] = false;
+                        register[0xF] = 1;
+                    } else {
+                        screen[xOffset][yOffset] = true;
                     }
                 }
-                isScreenUpdated = true;
+            }
         }
+        isScreenUpdated = true;
     }
 
     @Override
@@ -326,8 +583,8 @@ public class Processor {
                 ", opcode=0x" + Integer.toHexString(opcode) +
                 ", indexRegister=0x" + Integer.toHexString(indexRegister) +
                 ", stackPointer=0x" + Integer.toHexString(stackPointer) +
-                ", delayTimer=0x" + Integer.toHexString(delayTimer) +
-                ", soundTimer=0x" + Integer.toHexString(soundTimer) +
+                ", delayTimer=0x" + Integer.toHexString(getDelayTimer()) +
+                ", soundTimer=0x" + Integer.toHexString(getSoundTimer()) +
                 "]";
     }
 
@@ -0,0 +1,64 @@
+package org.example.processor;
+
+public record Quirks(boolean shiftUsesVY,
+                     MemoryIncrement memoryIncrement,
+                     boolean jumpUsesVX,
+                     boolean logicResetsVF,
+                     boolean clipSprites,
+                     boolean displayWait) {
+
+    public enum MemoryIncrement {
+        NONE(0, 0),      // I is left untouched
+        X(1, 0),         // I += X
+        X_PLUS_ONE(1, 1); // I += X + 1
+
+        final int factor;
+        final int bias;
+
+        MemoryIncrement(int factor, int bias) {
+            this.factor = factor;
+            this.bias = bias;
+        }
+    }
+
+    public static final Quirks DEFAULT = new Quirks(false, MemoryIncrement.NONE, false, false, false, false);
+    public static final Quirks COSMAC_VIP = new Quirks(true, MemoryIncrement.X_PLUS_ONE, false, true, true, true);
+    public static final Quirks CHIP_48 = new Quirks(false, MemoryIncrement.X, true, false, true, false);
+    public static final Quirks SUPER_CHIP = new Quirks(false, MemoryIncrement.NONE, true, false, true, false);
+    public static final Quirks XO_CHIP = new Quirks(true, MemoryIncrement.X_PLUS_ONE, false, false, false, false);
+
+    public static Quirks forName(String name) {
+        return switch (name.toUpperCase().replace('-', '_')) {
+            case "DEFAULT" -> DEFAULT;
+            case "COSMAC_VIP", "VIP", "CHIP_8" -> COSMAC_VIP;
+            case "CHIP_48" -> CHIP_48;
+            case "SUPER_CHIP", "SCHIP" -> SUPER_CHIP;
+            case "XO_CHIP" -> XO_CHIP;
+            default -> throw new IllegalArgumentException("Unknown quirks profile: " + name);
+        };
+    }
+
+    public Quirks withShiftUsesVY(boolean value) {
+        return new Quirks(value, memoryIncrement, jumpUsesVX, logicResetsVF, clipSprites, displayWait);
+    }
+
+    public Quirks withMemoryIncrement(MemoryIncrement value) {
+        return new Quirks(shiftUsesVY, value, jumpUsesVX, logicResetsVF, clipSprites, displayWait);
+    }
+
+    public Quirks withJumpUsesVX(boolean value) {
+        return new Quirks(shiftUsesVY, memoryIncrement, value, logicResetsVF, clipSprites, displayWait);
+    }
+
+    public Quirks withLogicResetsVF(boolean value) {
+        return new Quirks(shiftUsesVY, memoryIncrement, jumpUsesVX, value, clipSprites, displayWait);
+    }
+
+    public Quirks withClipSprites(boolean value) {
+        return new Quirks(shiftUsesVY, memoryIncrement, jumpUsesVX, logicResetsVF, value, displayWait);
+    }
+
+    public Quirks withDisplayWait(boolean value) {
+        return new Quirks(shiftUsesVY, memoryIncrement, jumpUsesVX, logicResetsVF, clipSprites, value);
+    }
+}
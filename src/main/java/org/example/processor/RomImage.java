@@ -0,0 +1,70 @@
+package org.example.processor;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.example.processor.Processor.FIRST_PROG_INSTR_ADDRESS;
+import static org.example.processor.Processor.FONTS;
+
+// Immutable memory image (fonts and program) copied into a processor with a single bulk copy
+public final class RomImage {
+    public static final int MEMORY_SIZE = 4096;
+    private static final int CACHE_SIZE = 32;
+
+    // The images of the programs loaded most recently, keyed by program contents
+    private static final Map<ByteBuffer, RomImage> CACHE = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, RomImage> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    final int[] memory;
+    final long memoryHash;
+    private final int programLength;
+
+    private RomImage(int[] memory, int programLength) {
+        this.memory = memory;
+        this.memoryHash = StateHash.memory(memory);
+        this.programLength = programLength;
+    }
+
+    public static RomImage of(byte[] program) {
+        if (program.length > MEMORY_SIZE - FIRST_PROG_INSTR_ADDRESS) {
+            throw new IllegalArgumentException("Program does not fit in memory: " + program.length + " bytes");
+        }
+        int[] memory = new int[MEMORY_SIZE];
+        System.arraycopy(FONTS, 0, memory, 0, FONTS.length);
+        for (int index = 0; index < program.length; index++) {
+            memory[FIRST_PROG_INSTR_ADDRESS + index] = program[index] & 0xFF;
+        }
+        return new RomImage(memory, program.length);
+    }
+
+    // Like of, but reloading a recent program reuses its image instead of copying and hashing it again
+    public static RomImage cached(byte[] program) {
+        synchronized (CACHE) {
+            RomImage image = CACHE.get(ByteBuffer.wrap(program));
+            if (image == null) {
+                image = of(program);
+                CACHE.put(ByteBuffer.wrap(program.clone()), image);
+            }
+            return image;
+        }
+    }
+
+    public int read(int address) {
+        return memory[address];
+    }
+
+    public int getProgramLength() {
+        return programLength;
+    }
+
+    public RomImage patch(int address, int value) {
+        int[] copy = memory.clone();
+        copy[address] = value & 0xFF;
+        return new RomImage(copy, programLength);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.processor;
+
+/*
+ * Hashes of machine state that every engine can compute the same way. The screen hash is the XOR of a random key
+ * per lit pixel and the memory hash the sum of a key per address and value, so both can be kept up to date one
+ * pixel or byte at a time instead of being recomputed.
+ */
+public final class StateHash {
+    static final long EMPTY_MEMORY = memory(new int[RomImage.MEMORY_SIZE]);
+
+    private StateHash() {
+    }
+
+    public static long pixel(int x, int y) {
+        return Processor.PIXEL_KEYS[x * Processor.SCREEN_HEIGHT + y];
+    }
+
+    public static long memory(int address, int value) {
+        return XorShift.next(XorShift.seed((long) address << 8 | value));
+    }
+
+    public static long memory(int[] memory) {
+        long hash = 0;
+        for (int address = 0; address < memory.length; address++) {
+            hash += memory(address, memory[address]);
+        }
+        return hash;
+    }
+
+    // Only the occupied part of the stack counts, stale entries above the stack pointer are unobservable
+    public static long combine(int programCounter, int indexRegister, int stackPointer, int delayTimer,
+                               int soundTimer, int[] registers, int[] stack, long memoryHash, long screenHash) {
+        long hash = programCounter;
+        hash = hash * 31 + indexRegister;
+        hash = hash * 31 + stackPointer;
+        hash = hash * 31 + delayTimer;
+        hash = hash * 31 + soundTimer;
+        for (int register : registers) {
+            hash = hash * 31 + register;
+        }
+        for (int level = 0; level < Math.min(stackPointer, stack.length); level++) {
+            hash = hash * 31 + stack[level];
+        }
+        return XorShift.next(XorShift.seed(hash)) ^ memoryHash * 0x9E3779B97F4A7C15L ^ screenHash;
+    }
+}
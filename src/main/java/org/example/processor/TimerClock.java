@@ -0,0 +1,8 @@
+package org.example.processor;
+
+public enum TimerClock {
+    EMULATED,   // time is the 60 Hz ticks passed to Processor.advanceTime, i.e. whole frames of emulated cycles
+    WALL_CLOCK; // time is the host's monotonic clock, whatever the processor is doing
+
+    static final long TICK_NANOS = 1_000_000_000L / 60;
+}
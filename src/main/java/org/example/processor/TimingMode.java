@@ -0,0 +1,6 @@
+package org.example.processor;
+
+public enum TimingMode {
+    FAST,       // every instruction costs one cycle of the configured clock
+    COSMAC_VIP  // instructions cost their COSMAC VIP machine cycles, see VipTiming
+}
@@ -0,0 +1,109 @@
+package org.example.processor;
+
+/*
+ * Base class of ROMs translated ahead of time into Java. Generated subclasses work directly on the processor's
+ * registers and memory and dispatch on the program counter to one method per basic block, entering it at any of
+ * its instructions so that a run resumes in translated code where the previous one ran out of instructions. Every
+ * address they did not translate, and everything after the program overwrites its own translated code, is
+ * executed by the interpreter one instruction at a time. Instructions whose behaviour depends on quirks or that are rare or
+ * complicated are delegated to the interpreter through execute, so both paths always agree.
+ */
+public abstract class TranslatedProgram {
+    protected final Processor processor;
+    protected final int[] v;
+    protected final int[] memory;
+    protected final boolean[] keys;
+    protected int pc;
+    protected int remaining;
+
+    private final long[] translated;
+    private boolean modified;
+
+    protected TranslatedProgram(Processor processor, long[] translated) {
+        this.processor = processor;
+        this.v = processor.register;
+        this.memory = processor.memory;
+        this.keys = processor.keys;
+        this.translated = translated;
+    }
+
+    // Executes exactly the given number of instructions without touching the timers
+    public final void run(int instructions) {
+        pc = processor.programCounter;
+        remaining = instructions;
+        while (remaining > 0) {
+            if (modified || !dispatch(pc)) {
+                int from = processor.indexRegister;
+                processor.programCounter = pc;
+                processor.doCycle();
+                checkStore(processor.opcode, from);
+                pc = processor.programCounter;
+                remaining--;
+            }
+        }
+        processor.programCounter = pc;
+    }
+
+    // Runs the block containing the address from that instruction on, false when no block contains it
+    protected abstract boolean dispatch(int address);
+
+    // Whether the program has written into its translated code, after which only the interpreter runs
+    public boolean isModified() {
+        return modified;
+    }
+
+    protected final int execute(int opcode, int address) {
+        int from = processor.indexRegister;
+        processor.programCounter = address + 2;
+        processor.opcode = opcode;
+        processor.decodeInstruction();
+        checkStore(opcode, from);
+        return processor.programCounter;
+    }
+
+    // Whether the instruction, which ran with I at from, stored into translated code
+    private void checkStore(int opcode, int from) {
+        if ((opcode & 0xF0FF) == 0xF033) {
+            checkWrite(from, 3);
+        } else if ((opcode & 0xF0FF) == 0xF055) {
+            checkWrite(from, ((opcode & 0x0F00) >>> 8) + 1);
+        }
+    }
+
+    private void checkWrite(int from, int length) {
+        int end = Math.min(from + length, RomImage.MEMORY_SIZE);
+        for (int address = Math.max(0, from - 1); address < end; address++) { // a write may hit an odd second byte
+            if ((translated[address >>> 6] & 1L << address) != 0) {
+                modified = true;
+            }
+        }
+    }
+
+    protected final void push(int returnAddress) {
+        processor.stack[processor.stackPointer++] = returnAddress;
+    }
+
+    protected final int pop() {
+        return processor.stack[--processor.stackPointer];
+    }
+
+    protected final int index() {
+        return processor.indexRegister;
+    }
+
+    protected final void index(int value) {
+        processor.indexRegister = value;
+    }
+
+    protected final int delayTimer() {
+        return processor.getDelayTimer();
+    }
+
+    protected final void delayTimer(int value) {
+        processor.setDelayTimer(value);
+    }
+
+    protected final void soundTimer(int value) {
+        processor.setSoundTimer(value);
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.processor;
+
+/*
+ * Runs a processor with COSMAC VIP instruction timing. The VIP clocks 1.7609 MHz with 8 clocks per machine
+ * cycle, giving 3668 machine cycles per 60 Hz frame. Costs are approximations of the original interpreter:
+ * everything that depends on the opcode alone is precomputed in one table, and only DXYN (sprite alignment)
+ * and FX33 (digit values) add a cost that depends on register contents.
+ */
+public class VipTiming {
+    public static final int MACHINE_CYCLES_PER_FRAME = 3668;
+
+    private static final short[] COSTS = new short[0x10000];
+    private static final int SPRITE_ROW_ALIGNED_COST = 11;
+    private static final int SPRITE_ROW_SHIFTED_COST = 25;
+    private static final int BCD_DIGIT_COST = 7;
+
+    static {
+        for (int opcode = 0; opcode < COSTS.length; opcode++) {
+            COSTS[opcode] = (short) baseCost(opcode);
+        }
+    }
+
+    private final Processor processor;
+    private final boolean displayWait;
+    private int overrun;
+    private long machineCycles;
+
+    public VipTiming(Processor processor) {
+        this.processor = processor;
+        this.displayWait = processor.getQuirks().displayWait();
+    }
+
+    private static int baseCost(int opcode) {
+        int x = (opcode & 0x0F00) >>> 8;
+        return switch (opcode >>> 12) {
+            case 0x0 -> opcode == 0x00E0 ? 24 : opcode == 0x00EE ? 23 : 40;
+            case 0x1, 0x2, 0xB -> 23;
+            case 0x3, 0x4, 0xA -> 12;
+            case 0x5, 0x9 -> 16;
+            case 0x6 -> 6;
+            case 0x7 -> 10;
+            case 0x8 -> 44;
+            case 0xC -> 36;
+            case 0xD -> 26;
+            case 0xE -> 16;
+            default -> switch (opcode & 0x00FF) {
+                case 0x07, 0x15, 0x18 -> 10;
+                case 0x0A -> 16;
+                case 0x1E -> 19;
+                case 0x29 -> 20;
+                case 0x33 -> 84;
+                case 0x55, 0x65 -> 14 + 14 * (x + 1);
+                default -> 12;
+            };
+        };
+    }
+
+    // Executes one 60 Hz frame worth of machine cycles, advances the timers by a tick and returns the instruction count
+    public int runFrame() {
+        int budget = MACHINE_CYCLES_PER_FRAME - overrun;
+        int used = 0;
+        int executed = 0;
+        int[] memory = processor.memory;
+        int[] register = processor.register;
+        while (used < budget) {
+            int programCounter = processor.programCounter;
+            int opcode = (memory[programCounter] << 8) | memory[programCounter + 1];
+            int cost = COSTS[opcode];
+            if (opcode >>> 12 == 0xD) {
+                boolean aligned = (register[(opcode & 0x0F00) >>> 8] & 0x07) == 0;
+                cost += (opcode & 0x000F) * (aligned ? SPRITE_ROW_ALIGNED_COST : SPRITE_ROW_SHIFTED_COST);
+            } else if ((opcode & 0xF0FF) == 0xF033) {
+                int value = register[(opcode & 0x0F00) >>> 8];
+                cost += BCD_DIGIT_COST * (value / 100 + value / 10 % 10 + value % 10);
+            }
+            processor.doCycle();
+            executed++;
+            used += cost;
+            if (displayWait && opcode >>> 12 == 0xD) {
+                used = budget; // drawing waits for the next vertical blank interrupt
+            }
+        }
+        overrun = used - budget;
+        machineCycles += used;
+        processor.advanceTime(1);
+        return executed;
+    }
+
+    public long getMachineCycles() {
+        return machineCycles;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.processor;
+
+public final class XorShift {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private XorShift() {
+    }
+
+    public static long seed(long seed) {
+        long state = (seed + 1) * GOLDEN_GAMMA;
+        return state != 0 ? state : GOLDEN_GAMMA;
+    }
+
+    public static long next(long state) {
+        state ^= state << 13;
+        state ^= state >>> 7;
+        state ^= state << 17;
+        return state;
+    }
+
+    public static int randomByte(long state) {
+        return (int) (state >>> 56);
+    }
+}
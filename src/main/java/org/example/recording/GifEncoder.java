@@ -0,0 +1,173 @@
+package org.example.recording;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+
+// Streaming animated GIF writer for 1-bit frames given as one long per row (pixel x at bit 63 - x)
+class GifEncoder {
+    private static final int MIN_CODE_SIZE = 2;
+    private static final int CLEAR_CODE = 1 << MIN_CODE_SIZE;
+    private static final int END_CODE = CLEAR_CODE + 1;
+    private static final int MAX_CODES = 4096;
+
+    private final OutputStream out;
+    private final int scale;
+    private final int[] child = new int[MAX_CODES * CLEAR_CODE];
+    private final byte[] block = new byte[255];
+
+    private int blockSize;
+    private long bitBuffer;
+    private int bitCount;
+    private int codeSize;
+    private int maxCode;
+    private int nextCode;
+
+    GifEncoder(OutputStream out, int scale) throws IOException {
+        this.out = out;
+        this.scale = scale;
+        writeHeader();
+    }
+
+    private void writeHeader() throws IOException {
+        out.write("GIF89a".getBytes());
+        writeShort(SCREEN_WIDTH * scale);
+        writeShort(SCREEN_HEIGHT * scale);
+        out.write(0x80); // global color table of 2 entries
+        out.write(0);
+        out.write(0);
+        out.write(new byte[]{0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+        out.write(new byte[]{0x21, (byte) 0xFF, 0x0B});
+        out.write("NETSCAPE2.0".getBytes());
+        out.write(new byte[]{0x03, 0x01, 0x00, 0x00, 0x00}); // loop forever
+    }
+
+    // Writes the part of frame that differs from previous, shown for delay hundredths of a second
+    void writeFrame(long[] previous, long[] frame, int delay, boolean full) throws IOException {
+        int top = 0;
+        int bottom = SCREEN_HEIGHT - 1;
+        long changed = -1L;
+        if (!full) {
+            changed = 0;
+            while (top < SCREEN_HEIGHT && previous[top] == frame[top]) top++;
+            while (bottom > top && previous[bottom] == frame[bottom]) bottom--;
+            if (top == SCREEN_HEIGHT) {
+                top = bottom = 0;
+            }
+            for (int y = top; y <= bottom; y++) {
+                changed |= previous[y] ^ frame[y];
+            }
+            if (changed == 0) {
+                changed = 1L << 63;
+            }
+        }
+        int left = Long.numberOfLeadingZeros(changed);
+        int right = SCREEN_WIDTH - 1 - Long.numberOfTrailingZeros(changed);
+
+        out.write(new byte[]{0x21, (byte) 0xF9, 0x04, 0x04}); // graphic control, do not dispose
+        writeShort(delay);
+        out.write(new byte[]{0x00, 0x00});
+        out.write(0x2C);
+        writeShort(left * scale);
+        writeShort(top * scale);
+        writeShort((right - left + 1) * scale);
+        writeShort((bottom - top + 1) * scale);
+        out.write(0);
+        writePixels(frame, left, right, top, bottom);
+    }
+
+    void finish() throws IOException {
+        out.write(0x3B);
+        out.flush();
+    }
+
+    private void writePixels(long[] frame, int left, int right, int top, int bottom) throws IOException {
+        out.write(MIN_CODE_SIZE);
+        resetDictionary();
+        emit(CLEAR_CODE);
+        int prefix = -1;
+        for (int y = top; y <= bottom; y++) {
+            long row = frame[y];
+            for (int repeatY = 0; repeatY < scale; repeatY++) {
+                for (int x = left; x <= right; x++) {
+                    int pixel = (int) (row >>> (63 - x)) & 1;
+                    for (int repeatX = 0; repeatX < scale; repeatX++) {
+                        if (prefix < 0) {
+                            prefix = pixel;
+                            continue;
+                        }
+                        int code = child[prefix * CLEAR_CODE + pixel];
+                        if (code != 0) {
+                            prefix = code;
+                            continue;
+                        }
+                        emit(prefix);
+                        if (nextCode < MAX_CODES) {
+                            child[prefix * CLEAR_CODE + pixel] = nextCode++;
+                        } else {
+                            emit(CLEAR_CODE);
+                            resetDictionary();
+                        }
+                        prefix = pixel;
+                    }
+                }
+            }
+        }
+        emit(prefix);
+        emit(END_CODE);
+        if (bitCount > 0) {
+            writeByte((int) bitBuffer);
+            bitBuffer = 0;
+            bitCount = 0;
+        }
+        flushBlock();
+        out.write(0);
+    }
+
+    private void resetDictionary() {
+        Arrays.fill(child, 0);
+        codeSize = MIN_CODE_SIZE + 1;
+        maxCode = (1 << codeSize) - 1;
+        nextCode = END_CODE + 1;
+    }
+
+    private void emit(int code) throws IOException {
+        bitBuffer |= (long) code << bitCount;
+        bitCount += codeSize;
+        while (bitCount >= 8) {
+            writeByte((int) bitBuffer);
+            bitBuffer >>>= 8;
+            bitCount -= 8;
+        }
+        if (code == CLEAR_CODE) {
+            codeSize = MIN_CODE_SIZE + 1;
+            maxCode = (1 << codeSize) - 1;
+        } else if (nextCode > maxCode && codeSize < 12) {
+            codeSize++;
+            maxCode = codeSize == 12 ? MAX_CODES : (1 << codeSize) - 1;
+        }
+    }
+
+    private void writeByte(int value) throws IOException {
+        block[blockSize++] = (byte) value;
+        if (blockSize == block.length) {
+            flushBlock();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockSize > 0) {
+            out.write(blockSize);
+            out.write(block, 0, blockSize);
+            blockSize = 0;
+        }
+    }
+
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+}
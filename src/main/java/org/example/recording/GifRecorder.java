@@ -0,0 +1,128 @@
+package org.example.recording;
+
+import org.example.processor.Processor;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+
+/*
+ * Records one frame per 60 Hz tick to an animated GIF. Frames are packed into pooled buffers and encoded on a
+ * background thread; when the encoder falls behind the frame is dropped rather than queued, so memory use does
+ * not depend on the recording length. Identical consecutive frames are merged by extending the frame delay.
+ */
+public class GifRecorder implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int TICKS_PER_SECOND = 60;
+
+    private final BlockingQueue<long[]> freeBuffers = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<long[]> pendingFrames = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final long[] endOfStream = new long[0];
+    private final OutputStream out;
+    private final GifEncoder encoder;
+    private final Thread worker;
+    private final AtomicLong droppedFrames = new AtomicLong();
+
+    private final long[] writtenFrame = new long[SCREEN_HEIGHT];
+    private final long[] heldFrame = new long[SCREEN_HEIGHT];
+    private int heldTicks;
+    private int delayRemainder;
+    private boolean isFirstFrame = true;
+    private IOException failure;
+
+    public GifRecorder(Path path, int scale) throws IOException {
+        out = new BufferedOutputStream(Files.newOutputStream(path));
+        encoder = new GifEncoder(out, scale);
+        for (int i = 0; i < QUEUE_CAPACITY; i++) {
+            freeBuffers.add(new long[SCREEN_HEIGHT]);
+        }
+        worker = new Thread(this::encodeFrames, "gif-recorder");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void submit(boolean[][] screen) {
+        long[] frame = freeBuffers.poll();
+        if (frame == null) {
+            droppedFrames.incrementAndGet();
+            return;
+        }
+        Processor.packScreen(screen, frame);
+        pendingFrames.add(frame);
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    private void encodeFrames() {
+        try {
+            while (true) {
+                long[] frame = pendingFrames.take();
+                if (frame == endOfStream) {
+                    break;
+                }
+                if (failure == null) {
+                    accept(frame);
+                }
+                freeBuffers.add(frame);
+            }
+            if (failure == null && heldTicks > 0) {
+                writeHeldFrame();
+            }
+            encoder.finish();
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void accept(long[] frame) {
+        if (heldTicks > 0 && Arrays.equals(frame, heldFrame)) {
+            heldTicks++;
+            return;
+        }
+        try {
+            if (heldTicks > 0) {
+                writeHeldFrame();
+            }
+        } catch (IOException e) {
+            failure = e;
+            return;
+        }
+        System.arraycopy(frame, 0, heldFrame, 0, SCREEN_HEIGHT);
+        heldTicks = 1;
+    }
+
+    private void writeHeldFrame() throws IOException {
+        int hundredths = heldTicks * 100 + delayRemainder;
+        delayRemainder = hundredths % TICKS_PER_SECOND;
+        encoder.writeFrame(writtenFrame, heldFrame, hundredths / TICKS_PER_SECOND, isFirstFrame);
+        System.arraycopy(heldFrame, 0, writtenFrame, 0, SCREEN_HEIGHT);
+        isFirstFrame = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            pendingFrames.put(endOfStream);
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            out.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package org.example.render;
+
+import org.example.processor.Processor;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+
+/*
+ * Turns emulated frames into a scaled ARGB image on a worker thread. Each frame is folded into per-pixel
+ * intensities (phosphor decay or the brighter of the last two frames) so sprites that are erased and redrawn
+ * every frame stop flickering. Finished images go through three buffers: the renderer holds one, at most one
+ * waits to be picked up and the worker draws into the third. Only source rows whose colours changed since a
+ * buffer was last drawn are expanded again, and an image identical to the previous one is not published at all.
+ */
+public class Compositor implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 8;
+    private static final int BUFFERS = 3;
+    private static final int PIXELS = SCREEN_WIDTH * SCREEN_HEIGHT;
+    private static final int WHITE = 0xFFFFFF;
+
+    public enum Persistence {
+        NONE,     // raw frames
+        LAST_TWO, // a pixel lit in either of the last two frames
+        PHOSPHOR  // lit pixels fade out by the decay factor every frame
+    }
+
+    private static final class Target {
+        final int[] pixels;
+        final int[] colors = new int[PIXELS];
+
+        Target(int size) {
+            pixels = new int[size];
+        }
+    }
+
+    private final int scale;
+    private final int width;
+    private final Persistence persistence;
+    private final float decay;
+    private final Kernel kernel;
+
+    private final BlockingQueue<long[]> freeFrames = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<long[]> pendingFrames = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final long[] endOfStream = new long[0];
+    private final BlockingQueue<Target> freeTargets = new ArrayBlockingQueue<>(BUFFERS);
+    private final AtomicReference<Target> ready = new AtomicReference<>();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong composedFrames = new AtomicLong();
+    private final AtomicLong composeNanos = new AtomicLong();
+    private final Thread worker;
+    private Target front;
+
+    private float[] lit = new float[PIXELS];
+    private float[] previousLit = new float[PIXELS];
+    private final float[] intensity = new float[PIXELS];
+    private final int[] colors = new int[PIXELS];
+    private final int[] publishedColors = new int[PIXELS];
+
+    public Compositor(int scale, Persistence persistence, float decay) {
+        this(scale, persistence, decay, createKernel());
+    }
+
+    Compositor(int scale, Persistence persistence, float decay, Kernel kernel) {
+        if (scale < 1) {
+            throw new IllegalArgumentException("Scale must be positive: " + scale);
+        }
+        this.scale = scale;
+        this.width = SCREEN_WIDTH * scale;
+        this.persistence = persistence;
+        this.decay = decay;
+        this.kernel = kernel;
+        for (int i = 0; i < QUEUE_CAPACITY; i++) {
+            freeFrames.add(new long[SCREEN_HEIGHT]);
+        }
+        for (int i = 0; i < BUFFERS; i++) {
+            freeTargets.add(new Target(width * SCREEN_HEIGHT * scale));
+        }
+        worker = new Thread(this::composeFrames, "compositor");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private static Kernel createKernel() {
+        try {
+            return (Kernel) Class.forName("org.example.render.VectorKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarKernel();
+        }
+    }
+
+    public boolean isVectorized() {
+        return !(kernel instanceof ScalarKernel);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return SCREEN_HEIGHT * scale;
+    }
+
+    // Called once per emulated frame, the frame is dropped when the worker is behind
+    public void submit(boolean[][] screen) {
+        long[] frame = freeFrames.poll();
+        if (frame == null) {
+            droppedFrames.incrementAndGet();
+            return;
+        }
+        Processor.packScreen(screen, frame);
+        pendingFrames.add(frame);
+    }
+
+    // Returns the newest image not seen yet, or null. The array stays valid until the next call
+    public int[] poll() {
+        Target latest = ready.getAndSet(null);
+        if (latest == null) {
+            return null;
+        }
+        if (front != null) {
+            freeTargets.add(front);
+        }
+        front = latest;
+        return latest.pixels;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public long getComposedFrames() {
+        return composedFrames.get();
+    }
+
+    public long getAverageComposeNanos() {
+        long frames = composedFrames.get();
+        return frames == 0 ? 0 : composeNanos.get() / frames;
+    }
+
+    private void composeFrames() {
+        try {
+            while (true) {
+                long[] frame = pendingFrames.take();
+                if (frame == endOfStream) {
+                    break;
+                }
+                long start = System.nanoTime();
+                Target target = compose(frame);
+                freeFrames.add(frame);
+                if (target != null) {
+                    Target superseded = ready.getAndSet(target);
+                    if (superseded != null) {
+                        freeTargets.add(superseded);
+                    }
+                }
+                composeNanos.addAndGet(System.nanoTime() - start);
+                composedFrames.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Returns the drawn buffer, or null when the image did not change or every buffer is in use
+    private Target compose(long[] frame) {
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            long row = frame[y];
+            int offset = y * SCREEN_WIDTH;
+            for (int x = 0; x < SCREEN_WIDTH; x++) {
+                lit[offset + x] = (row << x) < 0 ? 1f : 0f;
+            }
+        }
+        switch (persistence) {
+            case NONE -> kernel.fold(lit, intensity, 0f, intensity);
+            case LAST_TWO -> {
+                kernel.fold(lit, previousLit, 1f, intensity);
+                float[] swap = previousLit;
+                previousLit = lit;
+                lit = swap;
+            }
+            case PHOSPHOR -> kernel.fold(lit, intensity, decay, intensity);
+        }
+        kernel.shade(intensity, WHITE, colors);
+        if (Arrays.equals(colors, publishedColors)) {
+            return null;
+        }
+        Target target = freeTargets.poll();
+        if (target == null) {
+            return null; // the renderer still holds every buffer, the next frame carries the change
+        }
+        expand(target);
+        System.arraycopy(colors, 0, publishedColors, 0, PIXELS);
+        return target;
+    }
+
+    private void expand(Target target) {
+        int[] pixels = target.pixels;
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            int from = y * SCREEN_WIDTH;
+            int to = from + SCREEN_WIDTH;
+            if (Arrays.equals(colors, from, to, target.colors, from, to)) {
+                continue;
+            }
+            int offset = y * scale * width;
+            for (int x = 0; x < SCREEN_WIDTH; x++) {
+                kernel.fill(pixels, offset + x * scale, scale, colors[from + x]);
+            }
+            for (int line = 1; line < scale; line++) {
+                System.arraycopy(pixels, offset, pixels, offset + line * width, width);
+            }
+            System.arraycopy(colors, from, target.colors, from, SCREEN_WIDTH);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            pendingFrames.put(endOfStream);
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Usage: Compositor [scale] [frames], composes alternating full-screen patterns and prints the throughput
+    public static void main(String[] args) throws InterruptedException {
+        int scale = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+        boolean[][] even = new boolean[SCREEN_WIDTH][SCREEN_HEIGHT];
+        boolean[][] odd = new boolean[SCREEN_WIDTH][SCREEN_HEIGHT];
+        for (int x = 0; x < SCREEN_WIDTH; x++) {
+            for (int y = 0; y < SCREEN_HEIGHT; y++) {
+                even[x][y] = (x + y) % 2 == 0;
+                odd[x][y] = !even[x][y];
+            }
+        }
+        try (Compositor compositor = new Compositor(scale, Persistence.NONE, 0f)) {
+            long start = System.nanoTime();
+            for (int frame = 0; frame < frames; frame++) {
+                compositor.submit(frame % 2 == 0 ? even : odd);
+                while (compositor.getComposedFrames() + compositor.getDroppedFrames() <= frame) {
+                    Thread.onSpinWait();
+                }
+                compositor.poll();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%dx%d, %s kernel: %.0f frames/s, %.2f ms per frame%n", compositor.getWidth(),
+                    compositor.getHeight(), compositor.isVectorized() ? "vector" : "scalar", frames / seconds,
+                    compositor.getAverageComposeNanos() / 1e6);
+        }
+    }
+}
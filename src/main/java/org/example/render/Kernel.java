@@ -0,0 +1,12 @@
+package org.example.render;
+
+// Per-pixel operations of the compositor, implemented once with scalar loops and once with the Vector API
+interface Kernel {
+    // intensity[i] = max(lit[i], history[i] * factor)
+    void fold(float[] lit, float[] history, float factor, float[] intensity);
+
+    // Scales the tint channels by each intensity into opaque ARGB
+    void shade(float[] intensity, int tint, int[] colors);
+
+    void fill(int[] pixels, int from, int length, int color);
+}
@@ -0,0 +1,31 @@
+package org.example.render;
+
+final class ScalarKernel implements Kernel {
+    @Override
+    public void fold(float[] lit, float[] history, float factor, float[] intensity) {
+        for (int i = 0; i < intensity.length; i++) {
+            intensity[i] = Math.max(lit[i], history[i] * factor);
+        }
+    }
+
+    @Override
+    public void shade(float[] intensity, int tint, int[] colors) {
+        float red = tint >>> 16 & 0xFF;
+        float green = tint >>> 8 & 0xFF;
+        float blue = tint & 0xFF;
+        for (int i = 0; i < colors.length; i++) {
+            float level = intensity[i];
+            colors[i] = 0xFF000000
+                    | (int) (red * level + 0.5f) << 16
+                    | (int) (green * level + 0.5f) << 8
+                    | (int) (blue * level + 0.5f);
+        }
+    }
+
+    @Override
+    public void fill(int[] pixels, int from, int length, int color) {
+        for (int i = from; i < from + length; i++) {
+            pixels[i] = color;
+        }
+    }
+}
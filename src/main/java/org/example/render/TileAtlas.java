@@ -0,0 +1,162 @@
+package org.example.render;
+
+import java.util.Arrays;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+
+/*
+ * The screens of many instances laid out in a grid in one ARGB image, so that all of them reach the display in a
+ * single texture. A frame is drawn as packed rows (one long per row, the leftmost pixel in the highest bit) and
+ * only the pixels that differ from what the tile shows are written. Each tile remembers the rows that changed
+ * since the last flush, which hands out one rectangle per changed tile, covering just those rows, to be uploaded.
+ * Drawing and flushing cost is proportional to the changed pixels and tiles, not to the number of tiles.
+ *
+ * Not thread-safe: frames are copied out of the emulation threads and drawn on the render thread.
+ */
+public class TileAtlas {
+    public static final int GAP = 2;
+    public static final int LIT = 0xFFFFFFFF;
+    public static final int DARK = 0xFF000000;
+    public static final int BACKGROUND = 0xFF202020;
+
+    public interface RegionConsumer {
+        void accept(int x, int y, int width, int height);
+    }
+
+    private final int tiles;
+    private final int columns;
+    private final int scale;
+    private final int cellWidth;
+    private final int cellHeight;
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private final long[] shown;
+    private final int[] firstDirtyRow;
+    private final int[] lastDirtyRow;
+    private final int[] dirtyTiles;
+    private int dirtyCount;
+
+    public TileAtlas(int tiles, int scale) {
+        this(tiles, (int) Math.ceil(Math.sqrt(tiles)), scale);
+    }
+
+    public TileAtlas(int tiles, int columns, int scale) {
+        if (tiles < 1 || columns < 1 || scale < 1) {
+            throw new IllegalArgumentException("Tiles, columns and scale must be positive: " + tiles + ", "
+                    + columns + ", " + scale);
+        }
+        this.tiles = tiles;
+        this.columns = columns;
+        this.scale = scale;
+        cellWidth = SCREEN_WIDTH * scale + GAP;
+        cellHeight = SCREEN_HEIGHT * scale + GAP;
+        width = columns * cellWidth - GAP;
+        height = (tiles + columns - 1) / columns * cellHeight - GAP;
+        pixels = new int[width * height];
+        shown = new long[tiles * SCREEN_HEIGHT];
+        firstDirtyRow = new int[tiles];
+        lastDirtyRow = new int[tiles];
+        dirtyTiles = new int[tiles];
+        Arrays.fill(pixels, BACKGROUND);
+        for (int tile = 0; tile < tiles; tile++) {
+            for (int y = 0; y < SCREEN_HEIGHT * scale; y++) {
+                int offset = (tileY(tile) + y) * width + tileX(tile);
+                Arrays.fill(pixels, offset, offset + SCREEN_WIDTH * scale, DARK);
+            }
+            firstDirtyRow[tile] = SCREEN_HEIGHT;
+            markDirty(tile, 0, SCREEN_HEIGHT - 1);
+        }
+    }
+
+    public int size() {
+        return tiles;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int tileX(int tile) {
+        return tile % columns * cellWidth;
+    }
+
+    public int tileY(int tile) {
+        return tile / columns * cellHeight;
+    }
+
+    // The tile under a point of the atlas, or -1 for a gap or empty cell
+    public int tileAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height || x % cellWidth >= cellWidth - GAP
+                || y % cellHeight >= cellHeight - GAP) {
+            return -1;
+        }
+        int tile = y / cellHeight * columns + x / cellWidth;
+        return tile < tiles ? tile : -1;
+    }
+
+    // Writes the pixels of the frame that differ from the tile and returns how many there were
+    public int draw(int tile, long[] rows) {
+        int changed = 0;
+        int offset = tile * SCREEN_HEIGHT;
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            long difference = shown[offset + y] ^ rows[y];
+            if (difference == 0) {
+                continue;
+            }
+            shown[offset + y] = rows[y];
+            changed += Long.bitCount(difference);
+            markDirty(tile, y, y);
+            int top = tileY(tile) + y * scale;
+            int left = tileX(tile);
+            while (difference != 0) {
+                int x = Long.numberOfLeadingZeros(difference);
+                difference &= ~(Long.MIN_VALUE >>> x);
+                int color = rows[y] << x < 0 ? LIT : DARK;
+                for (int line = 0; line < scale; line++) {
+                    int start = (top + line) * width + left + x * scale;
+                    Arrays.fill(pixels, start, start + scale, color);
+                }
+            }
+        }
+        return changed;
+    }
+
+    private void markDirty(int tile, int first, int last) {
+        if (firstDirtyRow[tile] > lastDirtyRow[tile]) {
+            dirtyTiles[dirtyCount++] = tile;
+            firstDirtyRow[tile] = first;
+            lastDirtyRow[tile] = last;
+        } else {
+            firstDirtyRow[tile] = Math.min(firstDirtyRow[tile], first);
+            lastDirtyRow[tile] = Math.max(lastDirtyRow[tile], last);
+        }
+    }
+
+    // Hands out the region of every tile that changed since the last flush and returns how many there were
+    public int flush(RegionConsumer consumer) {
+        int flushed = dirtyCount;
+        for (int index = 0; index < dirtyCount; index++) {
+            int tile = dirtyTiles[index];
+            consumer.accept(tileX(tile), tileY(tile) + firstDirtyRow[tile] * scale, SCREEN_WIDTH * scale,
+                    (lastDirtyRow[tile] - firstDirtyRow[tile] + 1) * scale);
+            firstDirtyRow[tile] = SCREEN_HEIGHT;
+            lastDirtyRow[tile] = -1;
+        }
+        dirtyCount = 0;
+        return flushed;
+    }
+}
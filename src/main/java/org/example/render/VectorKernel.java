@@ -0,0 +1,64 @@
+package org.example.render;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Only loadable when the JVM runs with --add-modules jdk.incubator.vector
+final class VectorKernel implements Kernel {
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void fold(float[] lit, float[] history, float factor, float[] intensity) {
+        int i = 0;
+        for (int bound = FLOATS.loopBound(intensity.length); i < bound; i += FLOATS.length()) {
+            FloatVector decayed = FloatVector.fromArray(FLOATS, history, i).mul(factor);
+            FloatVector.fromArray(FLOATS, lit, i).max(decayed).intoArray(intensity, i);
+        }
+        for (; i < intensity.length; i++) {
+            intensity[i] = Math.max(lit[i], history[i] * factor);
+        }
+    }
+
+    @Override
+    public void shade(float[] intensity, int tint, int[] colors) {
+        float red = tint >>> 16 & 0xFF;
+        float green = tint >>> 8 & 0xFF;
+        float blue = tint & 0xFF;
+        int i = 0;
+        for (int bound = FLOATS.loopBound(colors.length); i < bound; i += FLOATS.length()) {
+            FloatVector level = FloatVector.fromArray(FLOATS, intensity, i);
+            IntVector argb = channel(level, red).lanewise(VectorOperators.LSHL, 16)
+                    .or(channel(level, green).lanewise(VectorOperators.LSHL, 8))
+                    .or(channel(level, blue))
+                    .or(0xFF000000);
+            argb.intoArray(colors, i);
+        }
+        for (; i < colors.length; i++) {
+            float level = intensity[i];
+            colors[i] = 0xFF000000
+                    | (int) (red * level + 0.5f) << 16
+                    | (int) (green * level + 0.5f) << 8
+                    | (int) (blue * level + 0.5f);
+        }
+    }
+
+    private static IntVector channel(FloatVector level, float value) {
+        return (IntVector) level.mul(value).add(0.5f).convert(VectorOperators.F2I, 0);
+    }
+
+    @Override
+    public void fill(int[] pixels, int from, int length, int color) {
+        IntVector broadcast = IntVector.broadcast(INTS, color);
+        int end = from + length;
+        int i = from;
+        for (int bound = from + INTS.loopBound(length); i < bound; i += INTS.length()) {
+            broadcast.intoArray(pixels, i);
+        }
+        for (; i < end; i++) {
+            pixels[i] = color;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package org.example.rl;
+
+import org.example.processor.FrameScheduler;
+import org.example.processor.Processor;
+import org.example.processor.RomImage;
+import org.example.processor.XorShift;
+import org.example.rom.RomDatabase;
+import org.example.rom.RomSettings;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+
+/*
+ * A batch of independent instances of one ROM for training agents. An action is the set of keys held during a
+ * step, one bit per key; a step runs the given number of 60 Hz frames and then writes every instance's screen into
+ * the caller's buffer, at instance * getObservationBytes(), either packed (one bit per pixel, eight bytes per row,
+ * the leftmost pixel in the highest bit) or as one byte per pixel (0 or 1, row-major). Rewards and done flags go
+ * into caller-supplied arrays.
+ *
+ * Instances are stepped in parallel in fixed chunks whose tasks are created once and reinitialised on every step,
+ * so stepping allocates no tasks, arrays or buffers. An instance that is done, or that faulted (a stack under- or overflow, a jump out
+ * of memory), stays frozen until it is reset.
+ */
+public class BatchEnvironment {
+    private static final int INSTANCES_PER_TASK = 32;
+
+    public enum ObservationFormat {
+        PACKED_BITS(SCREEN_WIDTH * SCREEN_HEIGHT / 8),
+        UINT8(SCREEN_WIDTH * SCREEN_HEIGHT);
+
+        public final int bytes;
+
+        ObservationFormat(int bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private final RomImage image;
+    private final RewardSpec reward;
+    private final ObservationFormat format;
+    private final ForkJoinPool pool;
+    private final Processor[] processors;
+    private final FrameScheduler[] schedulers;
+    private final int[] scores;
+    private final boolean[] finished;
+    private final int[] heldKeys;
+    private final long[][] screenRows;
+    private final Chunk[] chunks;
+    private final RecursiveAction root;
+
+    private int[] actions;
+    private int framesToSkip;
+    private ByteBuffer observations;
+    private float[] rewards;
+    private boolean[] dones;
+
+    public BatchEnvironment(byte[] program, RomSettings settings, RewardSpec reward, int size,
+                            ObservationFormat format) {
+        this(program, settings, reward, size, format, ForkJoinPool.commonPool());
+    }
+
+    public BatchEnvironment(byte[] program, RomSettings settings, RewardSpec reward, int size,
+                            ObservationFormat format, ForkJoinPool pool) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + size);
+        }
+        this.image = RomImage.of(program);
+        this.reward = reward;
+        this.format = format;
+        this.pool = pool;
+        processors = new Processor[size];
+        schedulers = new FrameScheduler[size];
+        int cyclesPerFrame = FrameScheduler.cyclesPerFrame(settings.clockHz());
+        for (int instance = 0; instance < size; instance++) {
+            processors[instance] = new Processor(settings.quirks());
+            schedulers[instance] = new FrameScheduler(processors[instance], cyclesPerFrame);
+        }
+        scores = new int[size];
+        finished = new boolean[size];
+        heldKeys = new int[size];
+        screenRows = new long[size][SCREEN_HEIGHT];
+        chunks = new Chunk[(size + INSTANCES_PER_TASK - 1) / INSTANCES_PER_TASK];
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            chunks[chunk] = new Chunk(chunk * INSTANCES_PER_TASK, Math.min(size, (chunk + 1) * INSTANCES_PER_TASK));
+        }
+        root = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(chunks);
+            }
+        };
+        reset(0);
+    }
+
+    public int size() {
+        return processors.length;
+    }
+
+    public int getObservationBytes() {
+        return format.bytes;
+    }
+
+    // Restarts every instance, instance i with random seed seed + i
+    public void reset(long seed) {
+        for (int instance = 0; instance < processors.length; instance++) {
+            reset(instance, seed + instance);
+        }
+    }
+
+    public void reset(int instance, long seed) {
+        Processor processor = processors[instance];
+        processor.reset(image);
+        processor.seedRandom(seed);
+        scores[instance] = reward.score(processor.getMemory());
+        finished[instance] = false;
+        heldKeys[instance] = 0;
+    }
+
+    // Writes the current screens without stepping, e.g. for the first observation after a reset
+    public void observe(ByteBuffer observations) {
+        checkBuffer(observations);
+        for (int instance = 0; instance < processors.length; instance++) {
+            writeObservation(instance, observations);
+        }
+    }
+
+    public void step(int[] actions, int framesToSkip, ByteBuffer observations, float[] rewards, boolean[] dones) {
+        if (actions.length < processors.length || rewards.length < processors.length
+                || dones.length < processors.length) {
+            throw new IllegalArgumentException("Actions, rewards and dones need one element per instance");
+        }
+        if (framesToSkip < 1) {
+            throw new IllegalArgumentException("At least one frame per step: " + framesToSkip);
+        }
+        checkBuffer(observations);
+        this.actions = actions;
+        this.framesToSkip = framesToSkip;
+        this.observations = observations;
+        this.rewards = rewards;
+        this.dones = dones;
+        root.reinitialize();
+        for (Chunk chunk : chunks) {
+            chunk.reinitialize();
+        }
+        pool.invoke(root);
+        this.actions = null;
+        this.observations = null;
+        this.rewards = null;
+        this.dones = null;
+    }
+
+    private void checkBuffer(ByteBuffer observations) {
+        if (!observations.isDirect()) {
+            throw new IllegalArgumentException("Observations must be a direct buffer");
+        }
+        if (observations.capacity() < (long) processors.length * format.bytes) {
+            throw new IllegalArgumentException("Observation buffer holds " + observations.capacity()
+                    + " bytes, " + processors.length * format.bytes + " needed");
+        }
+    }
+
+    private void stepInstance(int instance) {
+        if (finished[instance]) {
+            rewards[instance] = 0;
+            dones[instance] = true;
+            writeObservation(instance, observations);
+            return;
+        }
+        Processor processor = processors[instance];
+        int keys = actions[instance];
+        int changed = keys ^ heldKeys[instance];
+        for (int key = 0; changed != 0; key++, changed >>>= 1) {
+            if ((changed & 1) != 0) {
+                processor.setKey(key, (keys >>> key & 1) != 0);
+            }
+        }
+        heldKeys[instance] = keys;
+        int[] memory = processor.getMemory();
+        boolean done = false;
+        try {
+            for (int frame = 0; frame < framesToSkip && !done; frame++) {
+                schedulers[instance].runFrame();
+                done = reward.isDone(memory);
+            }
+        } catch (RuntimeException e) {
+            done = true;
+        }
+        int score = reward.score(memory);
+        rewards[instance] = score - scores[instance];
+        scores[instance] = score;
+        finished[instance] = done;
+        dones[instance] = done;
+        writeObservation(instance, observations);
+    }
+
+    private void writeObservation(int instance, ByteBuffer observations) {
+        boolean[][] screen = processors[instance].getScreen();
+        int offset = instance * format.bytes;
+        if (format == ObservationFormat.UINT8) {
+            for (int y = 0; y < SCREEN_HEIGHT; y++) {
+                for (int x = 0; x < SCREEN_WIDTH; x++) {
+                    observations.put(offset + y * SCREEN_WIDTH + x, (byte) (screen[x][y] ? 1 : 0));
+                }
+            }
+            return;
+        }
+        long[] rows = screenRows[instance];
+        Processor.packScreen(screen, rows);
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            observations.putLong(offset + y * Long.BYTES,
+                    observations.order() == ByteOrder.BIG_ENDIAN ? rows[y] : Long.reverseBytes(rows[y]));
+        }
+    }
+
+    @SuppressWarnings("serial") // never serialised
+    private class Chunk extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            for (int instance = from; instance < to; instance++) {
+                stepInstance(instance);
+            }
+        }
+    }
+
+    // Usage: BatchEnvironment <rom.ch8> [instances] [steps] [frames per step], random actions
+    public static void main(String[] args) throws IOException {
+        byte[] program = Files.readAllBytes(Path.of(args[0]));
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int framesToSkip = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        BatchEnvironment environment = new BatchEnvironment(program, RomDatabase.loadDefault().find(program),
+                RewardSpec.NONE, size, ObservationFormat.PACKED_BITS);
+        ByteBuffer observations = ByteBuffer.allocateDirect(size * environment.getObservationBytes());
+        int[] actions = new int[size];
+        float[] rewards = new float[size];
+        boolean[] dones = new boolean[size];
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long random = XorShift.seed(1);
+        long allocated = 0;
+        long start = System.nanoTime();
+        for (int step = 0; step < steps; step++) {
+            for (int instance = 0; instance < size; instance++) {
+                random = XorShift.next(random);
+                actions[instance] = 1 << (random & 0xF);
+            }
+            long before = threads.getCurrentThreadAllocatedBytes();
+            environment.step(actions, framesToSkip, observations, rewards, dones);
+            allocated += threads.getCurrentThreadAllocatedBytes() - before;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d instances, %d steps of %d frames in %.2fs: %.0f steps/s, %.0f frames/s,"
+                        + " %d bytes allocated by the caller per step%n", size, steps, framesToSkip, seconds,
+                size * steps / seconds, (double) size * steps * framesToSkip / seconds, allocated / steps);
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.rl;
+
+import org.example.rom.RomHash;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.example.processor.Debugger.parseNumber;
+
+/*
+ * Where a ROM keeps its score and when an episode is over. The score is read from memory after every step, either
+ * as a big-endian binary number or as one decimal digit per byte (what FX33 stores), and the reward is its change
+ * since the previous step. The episode is done once the byte at doneAddress equals doneValue, for example when
+ * the lives counter reaches zero; a negative doneAddress means the ROM never ends an episode on its own.
+ *
+ * The text form is "score=<address>[:<length>[:bcd]][,done=<address>==<value>]", for example
+ * "score=0x3F0:3:bcd,done=0x3F4==0".
+ */
+public record RewardSpec(int scoreAddress, int scoreLength, boolean bcd, int doneAddress, int doneValue) {
+    public static final RewardSpec NONE = new RewardSpec(0, 0, false, -1, 0);
+
+    public RewardSpec {
+        if (scoreLength < 0 || scoreLength > 4 || scoreAddress < 0 || scoreAddress + scoreLength > 4096) {
+            throw new IllegalArgumentException("Score must be 0 to 4 bytes inside memory: " + scoreLength
+                    + " bytes at " + scoreAddress);
+        }
+        if (doneAddress >= 4096) {
+            throw new IllegalArgumentException("Done address outside memory: " + doneAddress);
+        }
+    }
+
+    public static RewardSpec parse(String text) {
+        int scoreAddress = 0;
+        int scoreLength = 0;
+        boolean bcd = false;
+        int doneAddress = -1;
+        int doneValue = 0;
+        for (String part : text.split(",")) {
+            String[] pair = part.trim().split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected key=value: " + part);
+            }
+            switch (pair[0]) {
+                case "score" -> {
+                    String[] fields = pair[1].split(":");
+                    scoreAddress = parseNumber(fields[0]);
+                    scoreLength = fields.length > 1 ? parseNumber(fields[1]) : 1;
+                    bcd = fields.length > 2 && fields[2].equals("bcd");
+                }
+                case "done" -> {
+                    String[] fields = pair[1].split("==");
+                    if (fields.length != 2) {
+                        throw new IllegalArgumentException("Expected done=<address>==<value>: " + part);
+                    }
+                    doneAddress = parseNumber(fields[0]);
+                    doneValue = parseNumber(fields[1]);
+                }
+                default -> throw new IllegalArgumentException("Unknown reward setting: " + pair[0]);
+            }
+        }
+        return new RewardSpec(scoreAddress, scoreLength, bcd, doneAddress, doneValue);
+    }
+
+    // A properties file mapping the ROM's SHA-1 in hex to its reward specification
+    public static Map<String, RewardSpec> load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        Map<String, RewardSpec> specs = new HashMap<>();
+        for (String hash : properties.stringPropertyNames()) {
+            specs.put(hash.toLowerCase(), parse(properties.getProperty(hash)));
+        }
+        return specs;
+    }
+
+    public static RewardSpec find(Map<String, RewardSpec> specs, byte[] program) {
+        return specs.getOrDefault(RomHash.of(program).toString(), NONE);
+    }
+
+    int score(int[] memory) {
+        int score = 0;
+        for (int address = scoreAddress; address < scoreAddress + scoreLength; address++) {
+            score = bcd ? score * 10 + memory[address] : score << 8 | memory[address];
+        }
+        return score;
+    }
+
+    boolean isDone(int[] memory) {
+        return doneAddress >= 0 && memory[doneAddress] == doneValue;
+    }
+}
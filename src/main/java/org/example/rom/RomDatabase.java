@@ -0,0 +1,142 @@
+package org.example.rom;
+
+import org.example.processor.Quirks;
+import org.example.processor.TimingMode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+public class RomDatabase {
+    public static final Path DEFAULT_PATH = Path.of(System.getProperty("user.home"), ".chip8", "roms.db");
+
+    private static final int MAGIC = 0x43384442; // "C8DB"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 12;
+    private static final int VERSION_1_ENTRY_SIZE = RomHash.BYTES + 4 + 2 + 16;
+    private static final int ENTRY_SIZE = VERSION_1_ENTRY_SIZE + 1;
+
+    private static final int SHIFT_USES_VY = 0x01;
+    private static final int JUMP_USES_VX = 0x02;
+    private static final int LOGIC_RESETS_VF = 0x04;
+    private static final int CLIP_SPRITES = 0x08;
+    private static final int DISPLAY_WAIT = 0x10;
+
+    private final Map<RomHash, RomSettings> entries;
+
+    public RomDatabase() {
+        entries = new HashMap<>();
+    }
+
+    private RomDatabase(int expectedSize) {
+        entries = new HashMap<>(expectedSize * 4 / 3 + 1);
+    }
+
+    public static RomDatabase loadDefault() throws IOException {
+        return Files.exists(DEFAULT_PATH) ? load(DEFAULT_PATH) : new RomDatabase();
+    }
+
+    public static RomDatabase load(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a ROM settings database: " + path);
+        }
+        int version = buffer.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported ROM settings database version " + version + ": " + path);
+        }
+        int count = buffer.getInt();
+        if (buffer.remaining() != count * (version == 1 ? VERSION_1_ENTRY_SIZE : ENTRY_SIZE)) {
+            throw new IOException("Truncated ROM settings database: " + path);
+        }
+        RomDatabase database = new RomDatabase(count);
+        byte[] keyMap = new byte[16];
+        for (int i = 0; i < count; i++) {
+            RomHash hash = RomHash.read(buffer);
+            int clockHz = buffer.getInt();
+            int flags = buffer.get();
+            Quirks.MemoryIncrement memoryIncrement = Quirks.MemoryIncrement.values()[
+                    ordinal(buffer.get(), Quirks.MemoryIncrement.values().length, path)];
+            buffer.get(keyMap);
+            TimingMode timing = version == 1 ? TimingMode.FAST
+                    : TimingMode.values()[ordinal(buffer.get(), TimingMode.values().length, path)];
+            Quirks quirks = new Quirks((flags & SHIFT_USES_VY) != 0, memoryIncrement, (flags & JUMP_USES_VX) != 0,
+                    (flags & LOGIC_RESETS_VF) != 0, (flags & CLIP_SPRITES) != 0, (flags & DISPLAY_WAIT) != 0);
+            database.entries.put(hash,
+                    new RomSettings(clockHz, quirks, new String(keyMap, StandardCharsets.US_ASCII), timing));
+        }
+        return database;
+    }
+
+    private static int ordinal(byte value, int count, Path path) throws IOException {
+        if (value < 0 || value >= count) {
+            throw new IOException("Corrupt ROM settings database, unknown setting " + value + ": " + path);
+        }
+        return value;
+    }
+
+    public void save(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + entries.size() * ENTRY_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(entries.size());
+        for (Map.Entry<RomHash, RomSettings> entry : entries.entrySet()) {
+            RomSettings settings = entry.getValue();
+            Quirks quirks = settings.quirks();
+            int flags = (quirks.shiftUsesVY() ? SHIFT_USES_VY : 0) | (quirks.jumpUsesVX() ? JUMP_USES_VX : 0)
+                    | (quirks.logicResetsVF() ? LOGIC_RESETS_VF : 0) | (quirks.clipSprites() ? CLIP_SPRITES : 0)
+                    | (quirks.displayWait() ? DISPLAY_WAIT : 0);
+            entry.getKey().write(buffer);
+            buffer.putInt(settings.clockHz());
+            buffer.put((byte) flags);
+            buffer.put((byte) quirks.memoryIncrement().ordinal());
+            buffer.put(settings.keyMap().getBytes(StandardCharsets.US_ASCII));
+            buffer.put((byte) settings.timing().ordinal());
+        }
+        buffer.flip();
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public RomSettings find(byte[] program) {
+        return find(RomHash.of(program));
+    }
+
+    public RomSettings find(RomHash hash) {
+        return entries.getOrDefault(hash, RomSettings.DEFAULT);
+    }
+
+    public void put(RomHash hash, RomSettings settings) {
+        entries.put(hash, settings);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Usage: RomDatabase <rom.ch8> <clockHz> <quirks> [keyMap] [timing]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: RomDatabase <rom.ch8> <clockHz> <quirks> [keyMap] [timing]");
+            return;
+        }
+        RomDatabase database = loadDefault();
+        RomHash hash = RomHash.of(Files.readAllBytes(Path.of(args[0])));
+        String keyMap = args.length > 3 ? args[3].toUpperCase() : RomSettings.DEFAULT_KEY_MAP;
+        TimingMode timing = args.length > 4 ? TimingMode.valueOf(args[4].toUpperCase()) : TimingMode.FAST;
+        database.put(hash, new RomSettings(Integer.parseInt(args[1]), Quirks.forName(args[2]), keyMap, timing));
+        database.save(DEFAULT_PATH);
+        System.out.printf("%s -> %s%n", hash, database.find(hash));
+    }
+}
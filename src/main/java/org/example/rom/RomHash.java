@@ -0,0 +1,35 @@
+package org.example.rom;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public record RomHash(long high, long middle, int low) {
+    public static final int BYTES = 20;
+
+    public static RomHash of(byte[] program) {
+        try {
+            return fromBytes(MessageDigest.getInstance("SHA-1").digest(program));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    public static RomHash fromBytes(byte[] digest) {
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        return read(buffer);
+    }
+
+    public static RomHash read(ByteBuffer buffer) {
+        return new RomHash(buffer.getLong(), buffer.getLong(), buffer.getInt());
+    }
+
+    public void write(ByteBuffer buffer) {
+        buffer.putLong(high).putLong(middle).putInt(low);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x%08x", high, middle, low);
+    }
+}
@@ -0,0 +1,400 @@
+package org.example.rom;
+
+import org.example.processor.FrameScheduler;
+import org.example.processor.Processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.example.processor.Processor.FIRST_PROG_INSTR_ADDRESS;
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+
+/*
+ * An index of every ROM found in a set of directories and zip archives, kept in one file that is memory-mapped
+ * read-only, so opening a library of thousands of ROMs costs nothing until an entry is looked at. Each entry has
+ * the ROM's hash, size, title and a thumbnail: the screen after a few seconds of headless emulation, one long per
+ * row with pixel x at bit 63 - x. Entries are sorted by title.
+ *
+ * A library is immutable. refresh compares the modification time and size of every file and archive with the
+ * index and only reads and runs ROMs that are new or changed; the result is written next to the index and moved
+ * over it in one step, so readers of the previous mapping are unaffected.
+ */
+public class RomLibrary {
+    public static final Path DEFAULT_PATH = Path.of(System.getProperty("user.home"), ".chip8", "library.idx");
+
+    static final int THUMBNAIL_FRAMES = 180;
+
+    private static final int MAGIC = 0x43384c42; // "C8LB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int THUMBNAIL_SIZE = SCREEN_HEIGHT * Long.BYTES;
+    private static final int ENTRY_SIZE = RomHash.BYTES + 4 + 8 + 8 + 4 + 2 + 4 + 2 + 1 + THUMBNAIL_SIZE;
+    private static final int MAX_PROGRAM_SIZE = 4096 - FIRST_PROG_INSTR_ADDRESS;
+    private static final String ARCHIVE_SEPARATOR = "!/";
+
+    private static final int FAULTED = 0x01;
+
+    private final ByteBuffer buffer;
+    private final int count;
+
+    private RomLibrary(ByteBuffer buffer, int count) {
+        this.buffer = buffer;
+        this.count = count;
+    }
+
+    public record Refresh(RomLibrary library, int added, int updated, int removed, int unchanged) {
+        public boolean isChanged() {
+            return added + updated + removed > 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d added, %d updated, %d removed, %d unchanged", added, updated, removed,
+                    unchanged);
+        }
+    }
+
+    private static final class Counts {
+        int added;
+        int updated;
+        int removed;
+        int unchanged;
+    }
+
+    public static RomLibrary empty() {
+        return new RomLibrary(ByteBuffer.allocate(0), 0);
+    }
+
+    // Maps the index file, or returns an empty library when there is none yet
+    public static RomLibrary open(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return empty();
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a ROM library index: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported ROM library index version " + buffer.getInt(4) + ": " + path);
+        }
+        int count = buffer.getInt(8);
+        if (buffer.limit() < HEADER_SIZE + (long) count * ENTRY_SIZE) {
+            throw new IOException("Truncated ROM library index: " + path);
+        }
+        return new RomLibrary(buffer, count);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("No library entry " + index + " of " + count);
+        }
+        return HEADER_SIZE + index * ENTRY_SIZE;
+    }
+
+    public RomHash getHash(int index) {
+        return RomHash.read(buffer.slice(offset(index), RomHash.BYTES));
+    }
+
+    public int getRomSize(int index) {
+        return buffer.getInt(offset(index) + RomHash.BYTES);
+    }
+
+    private long getSourceModified(int index) {
+        return buffer.getLong(offset(index) + RomHash.BYTES + 4);
+    }
+
+    private long getSourceSize(int index) {
+        return buffer.getLong(offset(index) + RomHash.BYTES + 12);
+    }
+
+    // A file path, or an archive path and the entry inside it separated by "!/"
+    public String getLocation(int index) {
+        return string(offset(index) + RomHash.BYTES + 20);
+    }
+
+    public String getTitle(int index) {
+        return string(offset(index) + RomHash.BYTES + 26);
+    }
+
+    private String string(int position) {
+        int start = buffer.getInt(position);
+        byte[] bytes = new byte[buffer.getShort(position + 4) & 0xFFFF];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Whether the ROM crashed or did not fit in memory while its thumbnail was rendered
+    public boolean isFaulted(int index) {
+        return (buffer.get(offset(index) + RomHash.BYTES + 32) & FAULTED) != 0;
+    }
+
+    public long[] getThumbnail(int index) {
+        long[] rows = new long[SCREEN_HEIGHT];
+        buffer.slice(offset(index) + ENTRY_SIZE - THUMBNAIL_SIZE, THUMBNAIL_SIZE).asLongBuffer().get(rows);
+        return rows;
+    }
+
+    public int indexOf(RomHash hash) {
+        for (int index = 0; index < count; index++) {
+            if (getHash(index).equals(hash)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    public byte[] readProgram(int index) throws IOException {
+        String location = getLocation(index);
+        int separator = location.indexOf(ARCHIVE_SEPARATOR);
+        if (separator < 0) {
+            return Files.readAllBytes(Path.of(location));
+        }
+        try (ZipFile archive = new ZipFile(location.substring(0, separator))) {
+            ZipEntry entry = archive.getEntry(location.substring(separator + ARCHIVE_SEPARATOR.length()));
+            if (entry == null) {
+                throw new IOException("ROM is no longer in its archive: " + location);
+            }
+            try (InputStream in = archive.getInputStream(entry)) {
+                return in.readAllBytes();
+            }
+        }
+    }
+
+    private record Entry(RomHash hash, int romSize, long sourceModified, long sourceSize, String location,
+                         String title, boolean faulted, long[] thumbnail) {
+    }
+
+    private Entry entry(int index) {
+        return new Entry(getHash(index), getRomSize(index), getSourceModified(index), getSourceSize(index),
+                getLocation(index), getTitle(index), isFaulted(index), getThumbnail(index));
+    }
+
+    /*
+     * Scans the roots (directories, .ch8 files and .zip archives), writes the updated index to the path and
+     * returns it mapped, or this library when nothing changed. The database supplies the quirks and clock rate
+     * used for thumbnails.
+     */
+    public Refresh refresh(Path path, List<Path> roots, RomDatabase database) throws IOException {
+        Counts changes = new Counts();
+        Map<String, Entry> previous = new HashMap<>(count * 4 / 3 + 1);
+        for (int index = 0; index < count; index++) {
+            Entry entry = entry(index);
+            previous.put(entry.location(), entry);
+        }
+        Map<String, Entry> current = new HashMap<>(previous.size() * 4 / 3 + 1);
+        for (Path root : roots) {
+            List<Path> files;
+            if (Files.isDirectory(root)) {
+                try (Stream<Path> walk = Files.walk(root)) {
+                    files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+                }
+            } else {
+                files = List.of(root);
+            }
+            for (Path file : files) {
+                String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                if (name.endsWith(".ch8")) {
+                    scanFile(file.toAbsolutePath().normalize(), previous, current, database, changes);
+                } else if (name.endsWith(".zip")) {
+                    scanArchive(file.toAbsolutePath().normalize(), previous, current, database, changes);
+                }
+            }
+        }
+        for (String location : previous.keySet()) {
+            if (!current.containsKey(location)) {
+                changes.removed++;
+            }
+        }
+        RomLibrary library = this;
+        if (changes.added + changes.updated + changes.removed > 0 || !Files.exists(path)) {
+            List<Entry> entries = new ArrayList<>(current.values());
+            entries.sort(Comparator.comparing((Entry entry) -> entry.title().toLowerCase(Locale.ROOT))
+                    .thenComparing(Entry::location));
+            write(path, entries);
+            library = open(path);
+        }
+        return new Refresh(library, changes.added, changes.updated, changes.removed, changes.unchanged);
+    }
+
+    private static void scanFile(Path file, Map<String, Entry> previous, Map<String, Entry> current,
+                                 RomDatabase database, Counts changes) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long modified = attributes.lastModifiedTime().toMillis();
+        String location = file.toString();
+        Entry old = previous.get(location);
+        if (old != null && old.sourceModified() == modified && old.sourceSize() == attributes.size()) {
+            current.put(location, old);
+            changes.unchanged++;
+            return;
+        }
+        if (old == null) {
+            changes.added++;
+        } else {
+            changes.updated++;
+        }
+        current.put(location, index(Files.readAllBytes(file), modified, attributes.size(), location,
+                file.getFileName().toString(), database));
+    }
+
+    // An archive is indexed as a whole: if it has not changed, none of its entries are read
+    private static void scanArchive(Path file, Map<String, Entry> previous, Map<String, Entry> current,
+                                    RomDatabase database, Counts changes) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long modified = attributes.lastModifiedTime().toMillis();
+        String prefix = file + ARCHIVE_SEPARATOR;
+        List<Entry> old = new ArrayList<>();
+        boolean unchanged = true;
+        for (Entry entry : previous.values()) {
+            if (entry.location().startsWith(prefix)) {
+                old.add(entry);
+                unchanged &= entry.sourceModified() == modified && entry.sourceSize() == attributes.size();
+            }
+        }
+        if (!old.isEmpty() && unchanged) {
+            old.forEach(entry -> current.put(entry.location(), entry));
+            changes.unchanged += old.size();
+            return;
+        }
+        try (ZipFile archive = new ZipFile(file.toFile())) {
+            for (ZipEntry zipEntry : archive.stream().collect(Collectors.toList())) {
+                String name = zipEntry.getName();
+                if (zipEntry.isDirectory() || !name.toLowerCase(Locale.ROOT).endsWith(".ch8")) {
+                    continue;
+                }
+                byte[] program;
+                try (InputStream in = archive.getInputStream(zipEntry)) {
+                    program = in.readAllBytes();
+                }
+                String location = prefix + name;
+                if (previous.containsKey(location)) {
+                    changes.updated++;
+                } else {
+                    changes.added++;
+                }
+                current.put(location, index(program, modified, attributes.size(), location,
+                        name.substring(name.lastIndexOf('/') + 1), database));
+            }
+        }
+    }
+
+    private static Entry index(byte[] program, long modified, long sourceSize, String location, String fileName,
+                               RomDatabase database) {
+        RomHash hash = RomHash.of(program);
+        long[] thumbnail = new long[SCREEN_HEIGHT];
+        boolean faulted = !renderThumbnail(program, database.find(hash), thumbnail);
+        return new Entry(hash, program.length, modified, sourceSize, location, title(fileName), faulted, thumbnail);
+    }
+
+    // "Maze (alt) [David Winter, 199x].ch8" becomes "Maze (alt)"
+    static String title(String fileName) {
+        String title = fileName.substring(0, fileName.length() - ".ch8".length())
+                .replaceAll("\\[[^]]*]", "")
+                .replace('_', ' ')
+                .replaceAll("\\s+", " ")
+                .trim();
+        return title.isEmpty() ? fileName : title;
+    }
+
+    // Runs the ROM headless for a few seconds; the screen is kept even when it crashes
+    static boolean renderThumbnail(byte[] program, RomSettings settings, long[] rows) {
+        if (program.length > MAX_PROGRAM_SIZE) {
+            return false;
+        }
+        Processor processor = new Processor(settings.quirks());
+        processor.seedRandom(0);
+        processor.loadMemory(program);
+        FrameScheduler scheduler = new FrameScheduler(processor, FrameScheduler.cyclesPerFrame(settings.clockHz()));
+        boolean completed = true;
+        try {
+            for (int frame = 0; frame < THUMBNAIL_FRAMES; frame++) {
+                scheduler.runFrame();
+            }
+        } catch (RuntimeException e) {
+            completed = false;
+        }
+        Processor.packScreen(processor.getScreen(), rows);
+        return completed;
+    }
+
+    private static void write(Path path, List<Entry> entries) throws IOException {
+        List<byte[]> strings = new ArrayList<>(entries.size() * 2);
+        int stringBytes = 0;
+        for (Entry entry : entries) {
+            byte[] location = entry.location().getBytes(StandardCharsets.UTF_8);
+            byte[] title = entry.title().getBytes(StandardCharsets.UTF_8);
+            strings.add(location);
+            strings.add(title);
+            stringBytes += location.length + title.length;
+        }
+        int stringsStart = HEADER_SIZE + entries.size() * ENTRY_SIZE;
+        ByteBuffer out = ByteBuffer.allocate(stringsStart + stringBytes);
+        out.putInt(MAGIC).putInt(VERSION).putInt(entries.size());
+        int stringOffset = stringsStart;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            entry.hash().write(out);
+            out.putInt(entry.romSize()).putLong(entry.sourceModified()).putLong(entry.sourceSize());
+            for (byte[] string : List.of(strings.get(2 * i), strings.get(2 * i + 1))) {
+                out.putInt(stringOffset).putShort((short) string.length);
+                out.put(stringOffset, string);
+                stringOffset += string.length;
+            }
+            out.put((byte) (entry.faulted() ? FAULTED : 0));
+            for (long row : entry.thumbnail()) {
+                out.putLong(row);
+            }
+        }
+        out.position(0);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Usage: RomLibrary <directory | archive.zip>..., refreshes the default index and lists it
+    public static void main(String[] args) throws IOException {
+        List<Path> roots = Stream.of(args).map(Path::of).collect(Collectors.toList());
+        long start = System.nanoTime();
+        Refresh refresh = open(DEFAULT_PATH).refresh(DEFAULT_PATH, roots, RomDatabase.loadDefault());
+        long refreshNanos = System.nanoTime() - start;
+        RomLibrary library = refresh.library();
+        for (int index = 0; index < library.size(); index++) {
+            System.out.printf("%s %5d %s%s%n", library.getHash(index), library.getRomSize(index),
+                    library.getTitle(index), library.isFaulted(index) ? " (faulted)" : "");
+        }
+        System.out.printf("%d ROMs, %s, refreshed in %.1f ms%n", library.size(), refresh, refreshNanos / 1e6);
+    }
+}
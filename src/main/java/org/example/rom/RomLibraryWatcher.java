@@ -0,0 +1,119 @@
+package org.example.rom;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/*
+ * Keeps a library up to date on a background thread: it refreshes once at start, to pick up whatever changed
+ * while nothing was watching, and again whenever files under the roots change, after they have been quiet for a
+ * moment so that a copy of many ROMs causes a single refresh. The listener is called on that thread with each
+ * new library.
+ */
+public class RomLibraryWatcher implements Closeable {
+    private static final long QUIET_MILLIS = 250;
+
+    private final Path path;
+    private final List<Path> roots;
+    private final RomDatabase database;
+    private final Consumer<RomLibrary> listener;
+    private final WatchService watchService;
+    private final Thread thread;
+    private RomLibrary library;
+
+    public RomLibraryWatcher(Path path, List<Path> roots, RomDatabase database, RomLibrary library,
+                             Consumer<RomLibrary> listener) throws IOException {
+        this.path = path;
+        this.roots = roots;
+        this.database = database;
+        this.library = library;
+        this.listener = listener;
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                try (Stream<Path> directories = Files.walk(root)) {
+                    for (Path directory : (Iterable<Path>) directories.filter(Files::isDirectory)::iterator) {
+                        register(directory);
+                    }
+                }
+            } else {
+                register(root.toAbsolutePath().getParent());
+            }
+        }
+        thread = new Thread(this::watch, "rom-library-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void register(Path directory) throws IOException {
+        directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+    }
+
+    private void watch() {
+        try {
+            refresh();
+            while (true) {
+                WatchKey key = watchService.take();
+                do {
+                    handle(key);
+                    key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                refresh();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    // New directories are watched as well, anything else only matters to the next refresh
+    private void handle(WatchKey key) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == ENTRY_CREATE) {
+                Path created = ((Path) key.watchable()).resolve((Path) event.context());
+                if (Files.isDirectory(created)) {
+                    try {
+                        register(created);
+                    } catch (IOException e) {
+                        System.err.println("Cannot watch " + created + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        key.reset();
+    }
+
+    private void refresh() {
+        try {
+            RomLibrary.Refresh refresh = library.refresh(path, roots, database);
+            if (refresh.isChanged()) {
+                library = refresh.library();
+                listener.accept(library);
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot refresh ROM library: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // an unreadable directory while walking, a ROM that breaks its thumbnail or a failing listener
+            System.err.println("Cannot refresh ROM library: " + e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.rom;
+
+import org.example.processor.Quirks;
+import org.example.processor.TimingMode;
+
+public record RomSettings(int clockHz, Quirks quirks, String keyMap, TimingMode timing) {
+    public static final String DEFAULT_KEY_MAP = "X123QWEASDZC4RFV"; // host keys for chip-8 keys 0-F
+    public static final RomSettings DEFAULT = new RomSettings(700, Quirks.DEFAULT, DEFAULT_KEY_MAP, TimingMode.FAST);
+
+    public RomSettings {
+        if (clockHz <= 0) {
+            throw new IllegalArgumentException("Clock rate must be positive: " + clockHz);
+        }
+        if (keyMap.length() != 16) {
+            throw new IllegalArgumentException("Key map must define all 16 keys: " + keyMap);
+        }
+    }
+}
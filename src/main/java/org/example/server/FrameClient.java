@@ -0,0 +1,109 @@
+package org.example.server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+
+// Minimal viewer used to exercise the frame server: receives frames for a while and prints the last screen
+public class FrameClient implements AutoCloseable {
+    private static final char PIXEL_ON_CHAR = '█';
+    private static final char PIXEL_OFF_CHAR = ' ';
+    private static final long POLL_INTERVAL_MILLIS = 5;
+
+    private final SocketChannel channel;
+    private final ByteBuffer inbound = ByteBuffer.allocate(FrameCodec.MAX_FRAME_SIZE * 4);
+    private final long[] rows = new long[SCREEN_HEIGHT];
+
+    private long frames;
+    private long bytes;
+    private boolean sound;
+
+    public FrameClient(SocketAddress address) throws IOException {
+        channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+        channel.connect(address);
+        channel.configureBlocking(false);
+    }
+
+    public void sendKey(int key, boolean pressed) throws IOException {
+        channel.write(ByteBuffer.wrap(new byte[]{FrameCodec.encodeKey(key, pressed)}));
+    }
+
+    // Applies every complete frame received so far and returns how many there were
+    public int poll() throws IOException {
+        int read = channel.read(inbound);
+        if (read < 0) {
+            throw new IOException("Server closed the connection");
+        }
+        bytes += read;
+        inbound.flip();
+        int received = 0;
+        while (inbound.remaining() >= 3) {
+            int length = inbound.getShort(inbound.position() + 1) & 0xFFFF;
+            if (inbound.remaining() < 3 + length) {
+                break;
+            }
+            sound = (FrameCodec.decode(inbound, rows) & FrameCodec.SOUND_FLAG) != 0;
+            received++;
+        }
+        inbound.compact();
+        frames += received;
+        return received;
+    }
+
+    public long[] getRows() {
+        return rows;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public boolean isSound() {
+        return sound;
+    }
+
+    public String dumpScreen() {
+        StringBuilder screen = new StringBuilder();
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            for (int x = 0; x < SCREEN_WIDTH; x++) {
+                screen.append((rows[y] << x) < 0 ? PIXEL_ON_CHAR : PIXEL_OFF_CHAR);
+            }
+            screen.append(System.lineSeparator());
+        }
+        return screen.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Usage: FrameClient [port | unix:<path>] [seconds]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SocketAddress address = FrameServer.parseAddress(args.length > 0 ? args[0] : "8088");
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        try (FrameClient client = new FrameClient(address)) {
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            while (System.nanoTime() < deadline) {
+                if (client.poll() == 0) {
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                }
+            }
+            System.out.print(client.dumpScreen());
+            System.out.printf("%d frames, %d bytes (%.1f bytes/s)%n", client.getFrames(), client.getBytes(),
+                    client.getBytes() / (double) seconds);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.server;
+
+import java.nio.ByteBuffer;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+
+/*
+ * Frame message: type (1 byte), payload length (2 bytes), flags (1 byte), changed row count (1 byte), then for
+ * each changed row its index followed by the run-length encoded XOR of the 8 row bytes as (count, value) pairs.
+ * Key message from the client: one byte, bit 7 set when the key is pressed and the key index in the low nibble.
+ */
+public final class FrameCodec {
+    public static final int FRAME = 0x01;
+    public static final int SOUND_FLAG = 0x01;
+    public static final int MAX_FRAME_SIZE = 5 + SCREEN_HEIGHT * (1 + 2 * Long.BYTES);
+
+    private FrameCodec() {
+    }
+
+    public static boolean encode(long[] previous, long[] current, boolean sound, ByteBuffer out) {
+        int start = out.position();
+        out.put((byte) FRAME).putShort((short) 0).put((byte) (sound ? SOUND_FLAG : 0));
+        int countPosition = out.position();
+        out.put((byte) 0);
+        int changedRows = 0;
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            long delta = previous[y] ^ current[y];
+            if (delta != 0) {
+                out.put((byte) y);
+                encodeRow(delta, out);
+                changedRows++;
+            }
+        }
+        out.put(countPosition, (byte) changedRows);
+        out.putShort(start + 1, (short) (out.position() - start - 3));
+        return changedRows > 0;
+    }
+
+    private static void encodeRow(long delta, ByteBuffer out) {
+        int column = 0;
+        while (column < Long.BYTES) {
+            int value = (int) (delta >>> (56 - column * 8)) & 0xFF;
+            int count = 1;
+            while (column + count < Long.BYTES && ((int) (delta >>> (56 - (column + count) * 8)) & 0xFF) == value) {
+                count++;
+            }
+            out.put((byte) count).put((byte) value);
+            column += count;
+        }
+    }
+
+    // Applies one complete frame message to rows and returns its flags
+    public static int decode(ByteBuffer in, long[] rows) {
+        if (in.get() != FRAME) {
+            throw new IllegalArgumentException("Unexpected message type");
+        }
+        in.getShort();
+        int flags = in.get();
+        int changedRows = in.get() & 0xFF;
+        for (int i = 0; i < changedRows; i++) {
+            int y = in.get();
+            long delta = 0;
+            int column = 0;
+            while (column < Long.BYTES) {
+                int count = in.get();
+                long value = in.get() & 0xFFL;
+                for (int k = 0; k < count; k++, column++) {
+                    delta |= value << (56 - column * 8);
+                }
+            }
+            rows[y] ^= delta;
+        }
+        return flags;
+    }
+
+    public static byte encodeKey(int key, boolean pressed) {
+        return (byte) ((pressed ? 0x80 : 0) | (key & 0x0F));
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.server;
+
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.PrometheusExporter;
+import org.example.processor.RomImage;
+import org.example.rom.RomDatabase;
+import org.example.rom.RomSettings;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class FrameServer implements AutoCloseable {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+    private final RomImage image;
+    private final RomSettings settings;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ScheduledExecutorService scheduler;
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private int sessionCount;
+
+    public FrameServer(byte[] program, RomSettings settings, SocketAddress address) throws IOException {
+        this.image = RomImage.of(program);
+        this.settings = settings;
+        serverChannel = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        selector = Selector.open();
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "frame-server-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    public SocketAddress getAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    public void serve() throws IOException {
+        while (selector.isOpen()) {
+            selector.select();
+            if (!selector.isOpen()) {
+                return;
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    accept();
+                } else if (key.isReadable()) {
+                    FrameSession session = (FrameSession) key.attachment();
+                    session.readKeys();
+                    if (session.isClosed()) {
+                        key.cancel();
+                    }
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        int cyclesPerFrame = Math.max(1, settings.clockHz() / 60);
+        FrameSession session = new FrameSession(channel, image, settings.quirks(), cyclesPerFrame, metricsRegistry,
+                "session-" + ++sessionCount);
+        channel.register(selector, SelectionKey.OP_READ, session);
+        session.setTicker(scheduler.scheduleAtFixedRate(session::tick, 0, FRAME_NANOS, TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof FrameSession session) {
+                session.close();
+            }
+        }
+        selector.close();
+        serverChannel.close();
+    }
+
+    // Usage: FrameServer <rom.ch8> [port | unix:<path>] [metrics port | metrics file]
+    public static void main(String[] args) throws IOException {
+        byte[] program = Files.readAllBytes(Path.of(args[0]));
+        String target = args.length > 1 ? args[1] : "8088";
+        SocketAddress address = parseAddress(target);
+        RomSettings settings = RomDatabase.loadDefault().find(program);
+        try (FrameServer server = new FrameServer(program, settings, address)) {
+            PrometheusExporter exporter = args.length > 2
+                    ? PrometheusExporter.start(server.getMetricsRegistry(), args[2]) : null;
+            try {
+                System.out.println("Serving " + args[0] + " on " + server.getAddress());
+                server.serve();
+            } finally {
+                if (exporter != null) {
+                    exporter.close();
+                }
+            }
+        }
+    }
+
+    static SocketAddress parseAddress(String target) {
+        if (target.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(target.substring("unix:".length()));
+        }
+        int separator = target.lastIndexOf(':');
+        if (separator < 0) {
+            return new InetSocketAddress("localhost", Integer.parseInt(target));
+        }
+        return new InetSocketAddress(target.substring(0, separator), Integer.parseInt(target.substring(separator + 1)));
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.server;
+
+import org.example.metrics.EmulatorMetrics;
+import org.example.metrics.MetricsRegistry;
+import org.example.processor.Processor;
+import org.example.processor.Quirks;
+import org.example.processor.RomImage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+
+class FrameSession {
+    private final SocketChannel channel;
+    private final MetricsRegistry registry;
+    private final EmulatorMetrics metrics;
+    private final Processor processor;
+    private final int cyclesPerFrame;
+    private final ByteBuffer outbound = ByteBuffer.allocateDirect(FrameCodec.MAX_FRAME_SIZE);
+    private final ByteBuffer inbound = ByteBuffer.allocateDirect(64);
+    private final long[] sentFrame = new long[SCREEN_HEIGHT];
+    private final long[] currentFrame = new long[SCREEN_HEIGHT];
+
+    private boolean sentSound;
+    private ScheduledFuture<?> ticker;
+    private volatile boolean closed;
+
+    FrameSession(SocketChannel channel, RomImage image, Quirks quirks, int cyclesPerFrame, MetricsRegistry registry,
+                 String name) {
+        this.channel = channel;
+        this.registry = registry;
+        this.metrics = registry.register(name);
+        this.processor = new Processor(quirks);
+        this.cyclesPerFrame = cyclesPerFrame;
+        processor.reset(image);
+        outbound.flip();
+    }
+
+    void setTicker(ScheduledFuture<?> ticker) {
+        this.ticker = ticker;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    // Called on the selector thread when key events arrive
+    void readKeys() {
+        try {
+            if (channel.read(inbound) < 0) {
+                close();
+                return;
+            }
+        } catch (IOException e) {
+            close();
+            return;
+        }
+        inbound.flip();
+        // The processor runs in tick() on the scheduler, so keys are set under the same lock
+        synchronized (this) {
+            while (inbound.hasRemaining()) {
+                int event = inbound.get();
+                processor.setKey(event & 0x0F, (event & 0x80) != 0);
+                metrics.keyEvent();
+            }
+        }
+        inbound.clear();
+    }
+
+    // Called by the scheduler 60 times a second
+    synchronized void tick() {
+        if (closed) {
+            return;
+        }
+        try {
+            long start = metrics.startFrame();
+            for (int cycle = 0; cycle < cyclesPerFrame; cycle++) {
+                processor.doCycle();
+            }
+            processor.advanceTime(1);
+            metrics.endFrame(start, cyclesPerFrame);
+            if (outbound.hasRemaining()) {
+                channel.write(outbound);
+                if (outbound.hasRemaining()) {
+                    metrics.framesDropped(1);
+                    return; // the viewer is behind, the next frame carries the accumulated changes
+                }
+            }
+            long renderStart = System.nanoTime();
+            boolean screenUpdated = processor.isScreenUpdated();
+            boolean sound = processor.isSound();
+            if (!screenUpdated && sound == sentSound) {
+                return;
+            }
+            Processor.packScreen(processor.getScreen(), currentFrame);
+            outbound.clear();
+            boolean changed = FrameCodec.encode(sentFrame, currentFrame, sound, outbound);
+            outbound.flip();
+            if (!changed && sound == sentSound) {
+                outbound.limit(0);
+                return;
+            }
+            System.arraycopy(currentFrame, 0, sentFrame, 0, SCREEN_HEIGHT);
+            sentSound = sound;
+            channel.write(outbound);
+            metrics.recordRender(System.nanoTime() - renderStart);
+        } catch (IOException | RuntimeException e) {
+            close();
+        }
+    }
+
+    void close() {
+        closed = true;
+        if (ticker != null) {
+            ticker.cancel(false);
+        }
+        registry.unregister(metrics);
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.utils;
+
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import org.example.processor.FrameScheduler;
+import org.example.processor.Processor;
+import org.example.processor.RomImage;
+import org.example.render.TileAtlas;
+import org.example.rom.RomSettings;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+
+/*
+ * Many instances running at once, shown as tiles of one image. Every instance runs its 60 Hz frames on a shared
+ * scheduled pool and, when its screen was drawn to, packs it into its own rows and sets its bit in a dirty mask.
+ * present(), called once per display frame on the FX thread, takes the mask, draws only the tiles whose bits were
+ * set into the atlas and uploads only the rows of the atlas that changed. An instance that faults stops and keeps
+ * its last screen.
+ */
+public class Dashboard extends ImageView implements AutoCloseable {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+    private final class Instance {
+        final Processor processor;
+        final FrameScheduler scheduler;
+        final long[] rows = new long[SCREEN_HEIGHT];
+        final int tile;
+
+        Instance(int tile, byte[] program, RomSettings settings) {
+            this.tile = tile;
+            processor = new Processor(settings.quirks());
+            processor.reset(RomImage.of(program));
+            processor.seedRandom(tile);
+            scheduler = new FrameScheduler(processor, FrameScheduler.cyclesPerFrame(settings.clockHz()));
+        }
+
+        // A fault propagates out of the task, which the pool then never runs again
+        void tick() {
+            scheduler.runFrame();
+            if (processor.isScreenUpdated()) {
+                synchronized (rows) {
+                    Processor.packScreen(processor.getScreen(), rows);
+                }
+                markDirty(tile);
+            }
+        }
+    }
+
+    private final TileAtlas atlas;
+    private final WritableImage image;
+    private final PixelWriter writer;
+    private final Instance[] instances;
+    private final AtomicLongArray dirty;
+    private final long[] frame = new long[SCREEN_HEIGHT];
+    private final TileAtlas.RegionConsumer uploader;
+    private final ScheduledExecutorService pool;
+
+    // Instance i runs programs.get(i % programs.size())
+    public Dashboard(List<byte[]> programs, List<RomSettings> settings, int instanceCount, int scale) {
+        if (programs.isEmpty() || programs.size() != settings.size()) {
+            throw new IllegalArgumentException("Need at least one program and settings for each");
+        }
+        atlas = new TileAtlas(instanceCount, scale);
+        image = new WritableImage(atlas.getWidth(), atlas.getHeight());
+        writer = image.getPixelWriter();
+        setImage(image);
+        int[] pixels = atlas.getPixels();
+        uploader = (x, y, width, height) -> writer.setPixels(x, y, width, height,
+                PixelFormat.getIntArgbPreInstance(), pixels, y * atlas.getWidth() + x, atlas.getWidth());
+        instances = new Instance[instanceCount];
+        dirty = new AtomicLongArray((instanceCount + 63) / 64);
+        for (int tile = 0; tile < instanceCount; tile++) {
+            instances[tile] = new Instance(tile, programs.get(tile % programs.size()),
+                    settings.get(tile % settings.size()));
+        }
+        pool = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Instance instance : instances) {
+            pool.scheduleAtFixedRate(instance::tick, 0, FRAME_NANOS, TimeUnit.NANOSECONDS);
+        }
+        atlas.flush(uploader);
+    }
+
+    public TileAtlas getAtlas() {
+        return atlas;
+    }
+
+    private void markDirty(int tile) {
+        int word = tile >>> 6;
+        long bit = 1L << tile;
+        long mask;
+        do {
+            mask = dirty.get(word);
+        } while ((mask & bit) == 0 && !dirty.compareAndSet(word, mask, mask | bit));
+    }
+
+    // Must be called on the FX thread; returns the number of pixels that changed
+    public int present() {
+        int changed = 0;
+        for (int word = 0; word < dirty.length(); word++) {
+            long mask = dirty.getAndSet(word, 0);
+            while (mask != 0) {
+                int tile = word << 6 | Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                long[] rows = instances[tile].rows;
+                synchronized (rows) {
+                    System.arraycopy(rows, 0, frame, 0, SCREEN_HEIGHT);
+                }
+                changed += atlas.draw(tile, frame);
+            }
+        }
+        atlas.flush(uploader);
+        return changed;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
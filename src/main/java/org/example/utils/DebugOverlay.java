@@ -0,0 +1,23 @@
+package org.example.utils;
+
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.CornerRadii;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+public class DebugOverlay extends Label {
+    private static final Color TEXT_COLOR = Color.LIME;
+    private static final Color BACKGROUND_COLOR = Color.rgb(0, 0, 0, 0.7);
+
+    public DebugOverlay() {
+        setFont(Font.font("Monospaced", 11));
+        setTextFill(TEXT_COLOR);
+        setPadding(new Insets(4));
+        setBackground(new Background(new BackgroundFill(BACKGROUND_COLOR, CornerRadii.EMPTY, Insets.EMPTY)));
+        setMouseTransparent(true);
+        setVisible(false);
+    }
+}
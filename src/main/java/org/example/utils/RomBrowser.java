@@ -0,0 +1,114 @@
+package org.example.utils;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.BorderPane;
+import org.example.rom.RomLibrary;
+
+import java.util.Locale;
+import java.util.function.ObjIntConsumer;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+
+// Lists a ROM library with thumbnails; typing filters by title, Enter or a double click launches the selection
+public class RomBrowser extends BorderPane {
+    private static final int THUMBNAIL_SCALE = 2;
+    private static final int LIT = 0xFF33FF66;
+    private static final int DARK = 0xFF000000;
+
+    private final TextField filter = new TextField();
+    private final ListView<Integer> list = new ListView<>();
+    private final ObjIntConsumer<RomLibrary> onLaunch;
+    private RomLibrary library;
+
+    public RomBrowser(RomLibrary library, ObjIntConsumer<RomLibrary> onLaunch) {
+        this.onLaunch = onLaunch;
+        filter.setPromptText("Filter");
+        filter.textProperty().addListener((observable, previous, text) -> applyFilter());
+        filter.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.DOWN) list.requestFocus();
+            else if (event.getCode() == KeyCode.ENTER) launchSelected();
+        });
+        list.setCellFactory(view -> new RomCell());
+        list.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.ENTER) launchSelected();
+        });
+        list.setOnMouseClicked(event -> {
+            if (event.getClickCount() == 2) launchSelected();
+        });
+        setTop(filter);
+        setCenter(list);
+        setLibrary(library);
+    }
+
+    // Must be called on the FX thread
+    public void setLibrary(RomLibrary library) {
+        this.library = library;
+        applyFilter();
+    }
+
+    private void applyFilter() {
+        String text = filter.getText().toLowerCase(Locale.ROOT);
+        ObservableList<Integer> indexes = FXCollections.observableArrayList();
+        for (int index = 0; index < library.size(); index++) {
+            if (text.isEmpty() || library.getTitle(index).toLowerCase(Locale.ROOT).contains(text)) {
+                indexes.add(index);
+            }
+        }
+        list.setItems(indexes);
+        list.getSelectionModel().selectFirst();
+    }
+
+    private void launchSelected() {
+        Integer index = list.getSelectionModel().getSelectedItem();
+        if (index != null) {
+            onLaunch.accept(library, index);
+        }
+    }
+
+    private class RomCell extends ListCell<Integer> {
+        private final WritableImage image = new WritableImage(SCREEN_WIDTH, SCREEN_HEIGHT);
+        private final int[] pixels = new int[SCREEN_WIDTH * SCREEN_HEIGHT];
+        private final Label label = new Label();
+
+        RomCell() {
+            ImageView thumbnail = new ImageView(image);
+            thumbnail.setFitWidth(SCREEN_WIDTH * THUMBNAIL_SCALE);
+            thumbnail.setFitHeight(SCREEN_HEIGHT * THUMBNAIL_SCALE);
+            thumbnail.setSmooth(false);
+            label.setGraphic(thumbnail);
+            label.setGraphicTextGap(8);
+            label.setPadding(new Insets(2));
+        }
+
+        @Override
+        protected void updateItem(Integer index, boolean empty) {
+            super.updateItem(index, empty);
+            if (empty || index == null) {
+                setGraphic(null);
+                return;
+            }
+            long[] rows = library.getThumbnail(index);
+            for (int y = 0; y < SCREEN_HEIGHT; y++) {
+                for (int x = 0; x < SCREEN_WIDTH; x++) {
+                    pixels[y * SCREEN_WIDTH + x] = rows[y] << x < 0 ? LIT : DARK;
+                }
+            }
+            image.getPixelWriter().setPixels(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT, PixelFormat.getIntArgbInstance(),
+                    pixels, 0, SCREEN_WIDTH);
+            label.setText(String.format("%s%n%d bytes%s", library.getTitle(index), library.getRomSize(index),
+                    library.isFaulted(index) ? ", crashed while rendering the thumbnail" : ""));
+            setGraphic(label);
+        }
+    }
+}
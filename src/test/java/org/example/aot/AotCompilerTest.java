@@ -0,0 +1,146 @@
+package org.example.aot;
+
+import org.example.processor.Processor;
+import org.example.processor.Quirks;
+import org.example.processor.TranslatedProgram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AotCompilerTest {
+    private static final int FRAMES = 600;
+    private static final int CYCLES_PER_FRAME = 12;
+
+    @TempDir
+    Path cache;
+
+    @Test
+    void shouldMatchInterpreterOnEveryTestRom() throws IOException, URISyntaxException {
+        Path romDirectory = Path.of(ClassLoader.getSystemResource("test_roms").toURI());
+        List<Path> roms;
+        try (Stream<Path> files = Files.list(romDirectory)) {
+            roms = files.filter(path -> path.toString().endsWith(".ch8")).sorted().collect(Collectors.toList());
+        }
+        AotCompiler compiler = new AotCompiler(cache);
+
+        for (Path rom : roms) {
+            byte[] program = Files.readAllBytes(rom);
+            for (Quirks quirks : List.of(Quirks.DEFAULT, Quirks.COSMAC_VIP)) {
+                Processor interpreted = processor(program, quirks);
+                Processor processor = processor(program, quirks);
+                TranslatedProgram translated = compiler.load(processor, program);
+                assertNotNull(translated);
+                for (int frame = 0; frame < FRAMES; frame++) {
+                    for (int cycle = 0; cycle < CYCLES_PER_FRAME; cycle++) {
+                        interpreted.doCycle();
+                    }
+                    interpreted.advanceTime(1);
+                    translated.run(CYCLES_PER_FRAME);
+                    processor.advanceTime(1);
+                }
+                String name = rom.getFileName() + " " + quirks;
+                assertEquals(interpreted.getScreenHash(), processor.getScreenHash(), name);
+                assertEquals(interpreted.getProgramCounter(), processor.getProgramCounter(), name);
+                assertArrayEquals(interpreted.getMemory(), processor.getMemory(), name);
+            }
+        }
+    }
+
+    @Test
+    void shouldLoadCachedTranslationWithoutCompiling() throws IOException {
+        byte[] program = {0x60, 0x05, 0x12, 0x00};
+        assertFalse(new AotCompiler(cache).isCached(program, Quirks.DEFAULT));
+        new AotCompiler(cache).load(processor(program, Quirks.DEFAULT), program);
+
+        AotCompiler restarted = new AotCompiler(cache);
+
+        assertTrue(restarted.isCached(program, Quirks.DEFAULT));
+        assertNotNull(restarted.load(processor(program, Quirks.DEFAULT), program));
+        assertFalse(restarted.isCached(program, Quirks.COSMAC_VIP));
+    }
+
+    @Test
+    void shouldFallBackToInterpreterAfterSelfModification() throws IOException {
+        byte[] program = {
+                (byte) 0xA2, 0x0A,      // 200: I = 0x20A
+                0x60, 0x6A,             // 202: V0 = 0x6A
+                0x61, 0x07,             // 204: V1 = 0x07
+                (byte) 0xF1, 0x55,      // 206: store V0, V1 over the instruction at 0x20A
+                0x00, 0x00,             // 208: no operation
+                0x6A, 0x01,             // 20A: VA = 1, becomes VA = 7
+                (byte) 0xA3, 0x00,      // 20C: I = 0x300
+                (byte) 0xFA, 0x55,      // 20E: store V0 to VA at 0x300
+                0x12, 0x10              // 210: jump to itself
+        };
+        Processor processor = processor(program, Quirks.DEFAULT);
+        TranslatedProgram translated = new AotCompiler(cache).load(processor, program);
+
+        translated.run(20);
+
+        assertTrue(translated.isModified());
+        assertEquals(7, processor.getMemory()[0x30A]);
+        assertEquals(0x210, processor.getProgramCounter());
+    }
+
+    @Test
+    void shouldResumeMidBlockAndNoticeTheWriteIntoTranslatedCode() throws IOException {
+        byte[] program = {
+                (byte) 0xA2, 0x09,      // 200: I = 0x209
+                0x60, 0x07,             // 202: V0 = 7
+                (byte) 0xF0, 0x55,      // 204: store V0 over the operand at 0x209
+                0x12, 0x08,             // 206: jump 0x208
+                0x60, 0x05,             // 208: V0 = 5, becomes V0 = 7
+                0x12, 0x0A              // 20A: jump to itself
+        };
+        Processor processor = processor(program, Quirks.DEFAULT);
+        TranslatedProgram translated = new AotCompiler(cache).load(processor, program);
+
+        translated.run(2);
+        translated.run(8);
+
+        assertTrue(translated.isModified());
+        assertEquals(7, processor.getRegister(0));
+        assertEquals(0x20A, processor.getProgramCounter());
+    }
+
+    @Test
+    void shouldNoticeAnInterpretedWriteIntoTranslatedCode() throws IOException {
+        byte[] program = {
+                (byte) 0xA2, 0x03,      // 200: I = 0x203
+                0x61, 0x05,             // 202: V1 = 5, becomes V1 = 0x61
+                0x60, 0x61,             // 204: V0 = 0x61
+                (byte) 0xB1, (byte) 0xA9, // 206: jump 0x1A9 + V0 = 0x20A, which is not translated
+                0x00, 0x00,             // 208
+                (byte) 0xF0, 0x55,      // 20A: store V0 over the operand at 0x203
+                0x12, 0x02              // 20C: jump 0x202
+        };
+        Processor processor = processor(program, Quirks.DEFAULT);
+        TranslatedProgram translated = new AotCompiler(cache).load(processor, program);
+
+        translated.run(7);
+
+        assertTrue(translated.isModified());
+        assertEquals(0x61, processor.getRegister(1));
+        assertEquals(0x204, processor.getProgramCounter());
+    }
+
+    private static Processor processor(byte[] program, Quirks quirks) {
+        Processor processor = new Processor(quirks);
+        processor.seedRandom(0);
+        processor.loadMemory(program);
+        return processor;
+    }
+}
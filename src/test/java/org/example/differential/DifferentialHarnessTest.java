@@ -0,0 +1,135 @@
+package org.example.differential;
+
+import org.example.aot.AotCompiler;
+import org.example.processor.Quirks;
+import org.example.rom.RomSettings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DifferentialHarnessTest {
+    private static final int FRAMES = 600;
+    // Adds one to V0 forever
+    private static final byte[] COUNTER = {0x70, 0x01, 0x12, 0x00};
+    // 8FY5, 8FY4, 8FY7, 8FF6 and 8FFE with VF as VX and an 8XY4 without carry, each flag copied to V4..V9, forever
+    private static final byte[] FLAGS = {
+            0x6F, 0x10, 0x63, 0x20, (byte) 0x8F, 0x35, (byte) 0x84, (byte) 0xF0,
+            0x6F, (byte) 0xF0, 0x63, 0x20, (byte) 0x8F, 0x34, (byte) 0x85, (byte) 0xF0,
+            0x6F, 0x01, 0x63, 0x02, (byte) 0x8F, 0x37, (byte) 0x86, (byte) 0xF0,
+            0x60, 0x01, 0x61, 0x02, 0x6F, 0x05, (byte) 0x80, 0x14, (byte) 0x87, (byte) 0xF0,
+            0x6F, 0x03, (byte) 0x8F, (byte) 0xF6, (byte) 0x88, (byte) 0xF0,
+            0x6F, (byte) 0x81, (byte) 0x8F, (byte) 0xFE, (byte) 0x89, (byte) 0xF0,
+            0x12, 0x00};
+
+    @TempDir
+    Path cache;
+
+    @Test
+    void shouldFindNoDivergenceBetweenInterpreterAndFleet() throws IOException {
+        DifferentialHarness harness = new DifferentialHarness(InterpreterEngine::new, FleetEngine::new, 256);
+
+        for (String rom : new String[]{"test_opcode.ch8", "bc_test.ch8", "Keypad Test.ch8"}) {
+            DifferentialHarness.Result result = harness.run(rom, loadResource("test_roms/" + rom),
+                    RomSettings.DEFAULT, 7, FRAMES);
+
+            assertTrue(result.matches(), result.toString());
+        }
+    }
+
+    @Test
+    void shouldAgreeOnFlagsWhenVFIsTheDestination() {
+        AotCompiler compiler = new AotCompiler(cache);
+        for (DifferentialHarness harness : new DifferentialHarness[]{
+                new DifferentialHarness(InterpreterEngine::new, FleetEngine::new, 64),
+                new DifferentialHarness(InterpreterEngine::new, () -> new TranslatedEngine(compiler), 64)}) {
+            DifferentialHarness.Result result = harness.run("flags", FLAGS, RomSettings.DEFAULT, 0, 60);
+
+            assertTrue(result.matches(), result.toString());
+        }
+    }
+
+    @Test
+    void shouldComputeTheSameStateHashIncrementallyAndFromScratch() throws IOException {
+        byte[] program = loadResource("test_roms/test_opcode.ch8");
+        Engine interpreter = new InterpreterEngine();
+        Engine fleet = new FleetEngine();
+        interpreter.load(program, Quirks.DEFAULT, 3);
+        fleet.load(program, Quirks.DEFAULT, 3);
+
+        interpreter.step(5000);
+        fleet.step(5000);
+
+        assertEquals(fleet.stateHash(), interpreter.stateHash());
+    }
+
+    @Test
+    void shouldBisectToTheFirstDivergingInstruction() throws IOException {
+        DifferentialHarness harness = new DifferentialHarness(InterpreterEngine::new, SkippingEngine::new, 256);
+
+        DifferentialHarness.Result result = harness.run("counter", COUNTER, RomSettings.DEFAULT, 0, FRAMES);
+
+        assertFalse(result.matches());
+        assertEquals(1024, result.cycles());
+        assertEquals(SkippingEngine.SKIP_AT, result.divergence().cycle());
+        assertEquals(0x200, result.divergence().programCounter());
+        assertEquals(0x7001, result.divergence().opcode());
+        assertEquals(List.of("PC 0x202 != 0x200"), result.divergence().differences());
+    }
+
+    @Test
+    void shouldTreatMachinesThatBothFaultedAsEqual() {
+        DifferentialHarness harness = new DifferentialHarness(InterpreterEngine::new, FleetEngine::new, 16);
+
+        DifferentialHarness.Result result = harness.run("underflow", new byte[]{0x00, (byte) 0xEE},
+                RomSettings.DEFAULT, 0, FRAMES);
+
+        assertTrue(result.matches());
+        assertEquals(16, result.cycles());
+    }
+
+    @Test
+    void shouldDeriveKeysFromSeedAndFrame() {
+        int changes = 0;
+        for (int frame = 1; frame < 1000; frame++) {
+            int keys = DifferentialHarness.keysForFrame(42, frame);
+            assertEquals(keys, DifferentialHarness.keysForFrame(42, frame));
+            assertTrue(Integer.bitCount(keys) <= 1);
+            if (keys != DifferentialHarness.keysForFrame(42, frame - 1)) {
+                changes++;
+            }
+        }
+        assertEquals(0, DifferentialHarness.keysForFrame(42, 0));
+        assertTrue(changes > 50 && changes < 200, "key changes: " + changes);
+    }
+
+    // Executes one instruction too many once it has run SKIP_AT instructions
+    private static class SkippingEngine extends InterpreterEngine {
+        static final long SKIP_AT = 1000;
+
+        private long executed;
+
+        @Override
+        protected void run(int cycles) {
+            for (int cycle = 0; cycle < cycles; cycle++) {
+                if (executed++ == SKIP_AT) {
+                    processor.doCycle();
+                }
+                processor.doCycle();
+            }
+        }
+    }
+
+    private static byte[] loadResource(String name) throws IOException {
+        try (InputStream stream = ClassLoader.getSystemResourceAsStream(name)) {
+            return stream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.fleet;
+
+import org.example.processor.Processor;
+import org.example.processor.Quirks;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FleetTest {
+    private static final int CYCLES = 2000;
+
+    @Test
+    void shouldMatchProcessorWhenRunningTestRom() throws IOException {
+        byte[] program = loadResource("test_roms/test_opcode.ch8");
+        Processor processor = new Processor();
+        processor.loadMemory(program);
+        Fleet fleet = new Fleet(300, Quirks.DEFAULT);
+        fleet.load(program);
+
+        for (int i = 0; i < CYCLES; i++) {
+            processor.doCycle();
+        }
+        long executed = fleet.step(CYCLES);
+
+        assertEquals((long) CYCLES * fleet.size(), executed);
+        for (int lane : new int[]{0, 150, 299}) {
+            assertFalse(fleet.isFaulted(lane));
+            for (int y = 0; y < SCREEN_HEIGHT; y++) {
+                long row = fleet.getScreenRow(lane, y);
+                for (int x = 0; x < SCREEN_WIDTH; x++) {
+                    assertEquals(processor.getScreen()[x][y], (row << x) < 0, "pixel " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldFaultLaneWhenStackUnderflows() {
+        Fleet fleet = new Fleet(2, Quirks.DEFAULT);
+        fleet.load(new byte[]{0x00, (byte) 0xEE});
+
+        fleet.step(1);
+
+        assertTrue(fleet.isFaulted(0));
+        assertEquals(0, fleet.step(1));
+    }
+
+    @Test
+    void shouldIgnoreUnknownKeyOpcodeWhateverVX() {
+        Fleet fleet = new Fleet(1, Quirks.DEFAULT);
+        fleet.load(new byte[]{0x66, (byte) 0xFF, (byte) 0xE6, 0x00, 0x12, 0x04});
+
+        fleet.step(3);
+
+        assertFalse(fleet.isFaulted(0));
+        assertEquals(0x204, fleet.getProgramCounter(0));
+    }
+
+    private static byte[] loadResource(String name) throws IOException {
+        try (InputStream stream = ClassLoader.getSystemResourceAsStream(name)) {
+            return stream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.fuzz;
+
+import org.example.processor.Quirks;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FuzzerTest {
+    private static final byte[] PROGRAM = new byte[]{
+            0x60, 0x05,             // V0 = 5
+            (byte) 0xE0, (byte) 0x9E, // skip next if key V0 is pressed
+            0x12, 0x02,             // jump 0x202
+            0x00, (byte) 0xEE       // return without call
+    };
+
+    @Test
+    void shouldFindStackUnderflowBehindKeyPress() throws InterruptedException {
+        Fuzzer fuzzer = new Fuzzer(PROGRAM, Quirks.DEFAULT, false);
+
+        fuzzer.runExecutions(1, 5000, 42);
+
+        List<Fuzzer.Crash> crashes = fuzzer.getCrashes();
+        assertEquals(1, crashes.size());
+        assertEquals("stack underflow", crashes.get(0).reason());
+        assertEquals(0x206, crashes.get(0).programCounter());
+        assertTrue(fuzzer.getCoveredAddresses() >= 4);
+        assertEquals(5000, fuzzer.getExecutions());
+    }
+
+    @Test
+    void shouldShareTheExecutionBudgetAndFindingsBetweenWorkers() throws InterruptedException {
+        Fuzzer fuzzer = new Fuzzer(PROGRAM, Quirks.DEFAULT, false);
+
+        fuzzer.runExecutions(4, 2000, 7);
+
+        assertEquals(2000, fuzzer.getExecutions());
+        assertEquals(1, fuzzer.getCrashes().size());
+        assertTrue(fuzzer.getCorpusSize() >= 2);
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmulatorMetricsTest {
+    @Test
+    void shouldCountFramesAndInstructions() {
+        EmulatorMetrics metrics = new EmulatorMetrics("test");
+        for (int frame = 0; frame < 3; frame++) {
+            long start = metrics.startFrame();
+            metrics.endFrame(start, 12);
+        }
+        metrics.framesDropped(2);
+
+        assertEquals(3, metrics.getFrames());
+        assertEquals(36, metrics.getInstructions());
+        assertEquals(2, metrics.getDroppedFrames());
+        assertEquals(3, metrics.getFrameTime().getCount());
+    }
+
+    @Test
+    void shouldMeasureInputLatencyFromOldestKeyEventToNextFrame() throws InterruptedException {
+        EmulatorMetrics metrics = new EmulatorMetrics("test");
+        metrics.keyEvent();
+        Thread.sleep(5);
+        metrics.keyEvent();
+        metrics.startFrame();
+        metrics.startFrame();
+
+        assertEquals(1, metrics.getInputLatency().getCount());
+        assertTrue(metrics.getInputLatencyMillisP50() >= 5);
+    }
+
+    @Test
+    void shouldReportNegativeDriftWhenFramesFallBehind() throws InterruptedException {
+        EmulatorMetrics metrics = new EmulatorMetrics("test");
+        Thread.sleep(50);
+
+        assertTrue(metrics.getTimerDriftMillis() <= -50);
+    }
+
+    @Test
+    void shouldRegisterMBeanAndExportPrometheusFormat() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        EmulatorMetrics metrics = registry.register("session \"1\"");
+        long start = metrics.startFrame();
+        metrics.endFrame(start, 11);
+        ObjectName name = new ObjectName("org.example.chip8:type=Emulator,name=" + ObjectName.quote("session \"1\""));
+
+        assertEquals(11L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Instructions"));
+        String dump = PrometheusExporter.format(registry);
+        assertTrue(dump.contains("# TYPE chip8_instructions_total counter\n"));
+        assertTrue(dump.contains("chip8_instructions_total{instance=\"session \\\"1\\\"\"} 11\n"));
+        assertTrue(dump.contains("chip8_frame_seconds_count{instance=\"session \\\"1\\\"\"} 1\n"));
+        assertTrue(dump.contains("chip8_frame_seconds{instance=\"session \\\"1\\\"\",quantile=\"0.99\"} "));
+
+        registry.unregister(metrics);
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        assertTrue(registry.getInstances().isEmpty());
+    }
+}
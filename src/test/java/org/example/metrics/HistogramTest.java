@@ -0,0 +1,47 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+    @Test
+    void shouldReportPercentilesWithinPrecision() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertWithin(50_000_000, histogram.getValueAtPercentile(50));
+        assertWithin(99_000_000, histogram.getValueAtPercentile(99));
+        assertWithin(99_900_000, histogram.getValueAtPercentile(99.9));
+        assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+    }
+
+    @Test
+    void shouldKeepSmallValuesExact() {
+        Histogram histogram = new Histogram();
+        histogram.record(3);
+        histogram.record(7);
+
+        assertEquals(3, histogram.getValueAtPercentile(50));
+        assertEquals(7, histogram.getValueAtPercentile(100));
+        assertEquals(10, histogram.getSum());
+    }
+
+    @Test
+    void shouldMapEveryValueIntoBucketContainingIt() {
+        for (long value : new long[]{0, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int index = Histogram.indexOf(value);
+            assertTrue(Histogram.highestEquivalentValue(index) >= value, "value " + value);
+            assertTrue(index == 0 || Histogram.highestEquivalentValue(index - 1) < value, "value " + value);
+        }
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 32, "expected about " + expected + " but was " + actual);
+    }
+}
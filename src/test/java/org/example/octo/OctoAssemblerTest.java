@@ -0,0 +1,149 @@
+package org.example.octo;
+
+import org.example.processor.Processor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OctoAssemblerTest {
+    private static final String SPIN = String.join("\n",
+            ": main",
+            "  v0 := 0",
+            ": spin",
+            "  v0 += 1",
+            "  jump spin");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldAssembleTheBundledSourcesToTheirRoms() throws IOException {
+        for (String rom : new String[]{"test_opcode", "chip8-test-rom-with-audio"}) {
+            String source = new String(loadResource("test_roms/" + rom + ".8o"), StandardCharsets.UTF_8);
+
+            assertArrayEquals(loadResource("test_roms/" + rom + ".ch8"), OctoAssembler.assemble(source).program(),
+                    rom);
+        }
+    }
+
+    @Test
+    void shouldAssembleControlFlowMacrosAndConstants() {
+        OctoAssembler.Assembly assembly = OctoAssembler.assemble(String.join("\n",
+                ":const LIMIT 10",
+                ":alias count v5",
+                ":macro add-two reg { reg += 2 }",
+                ": main",
+                "  loop",
+                "    count += 1",
+                "    if count < 5 then add-two v6",
+                "    while count != LIMIT",
+                "  again",
+                "  if v6 == 8 begin v7 := 1 else v7 := 2 end",
+                "  if v6 >= 9 then v8 := 1",
+                "  :unpack 0xA data",
+                "  v9 := v0",
+                "  va := v1",
+                "  i := data",
+                "  load v0",
+                ": halt",
+                "  jump halt",
+                ": data",
+                "  0x2A"));
+        Processor processor = new Processor();
+        processor.loadMemory(assembly.program());
+
+        for (int cycle = 0; cycle < 500; cycle++) {
+            processor.doCycle();
+        }
+
+        int data = assembly.labels().get("data");
+        assertEquals(assembly.labels().get("halt"), processor.getProgramCounter());
+        assertEquals(10, processor.getRegister(5));
+        assertEquals(8, processor.getRegister(6));
+        assertEquals(1, processor.getRegister(7));
+        assertEquals(0, processor.getRegister(8));
+        assertEquals(0xA0 | data >>> 8, processor.getRegister(9));
+        assertEquals(data & 0xFF, processor.getRegister(0xA));
+        assertEquals(0x2A, processor.getRegister(0));
+    }
+
+    @Test
+    void shouldReportTheLineOfAnError() {
+        IllegalArgumentException undefined = assertThrows(IllegalArgumentException.class,
+                () -> OctoAssembler.assemble(": main\n  v0 := 1\n  jump nowhere\n"));
+        IllegalArgumentException tooLarge = assertThrows(IllegalArgumentException.class,
+                () -> OctoAssembler.assemble(": main\n  v0 := 256\n"));
+        IllegalArgumentException unclosed = assertThrows(IllegalArgumentException.class,
+                () -> OctoAssembler.assemble(": main\n  loop\n  v0 += 1\n"));
+
+        assertEquals("line 3: Undefined name: nowhere", undefined.getMessage());
+        assertEquals("line 2: Value does not fit in a byte: 256", tooLarge.getMessage());
+        assertEquals("line 3: loop without again", unclosed.getMessage());
+    }
+
+    @Test
+    void shouldKeepTheStateWhenTheLabelsStillMatch() throws IOException {
+        Processor processor = new Processor();
+        OctoAssembler.Assembly initial = OctoAssembler.assemble(SPIN);
+        processor.loadMemory(initial.program());
+        for (int cycle = 0; cycle < 21; cycle++) {
+            processor.doCycle();
+        }
+        OctoAssembler.Assembly edited = OctoAssembler.assemble(SPIN.replace(": spin", "  v1 := 7\n: spin"));
+
+        try (OctoHotReloader reloader = startReloader(initial, processor)) {
+            assertTrue(reloader.apply(edited));
+        }
+        for (int cycle = 0; cycle < 20; cycle++) {
+            processor.doCycle();
+        }
+
+        assertEquals(20, processor.getRegister(0));
+        assertEquals(0, processor.getRegister(1));
+        assertEquals(edited.labels().get("spin") + 2, processor.getProgramCounter());
+        assertEquals(0x61, processor.getMemory()[initial.labels().get("spin")]);
+    }
+
+    @Test
+    void shouldRestartWhenTheRunningLabelIsGone() throws IOException {
+        Processor processor = new Processor();
+        OctoAssembler.Assembly initial = OctoAssembler.assemble(SPIN);
+        processor.loadMemory(initial.program());
+        for (int cycle = 0; cycle < 21; cycle++) {
+            processor.doCycle();
+        }
+
+        try (OctoHotReloader reloader = startReloader(initial, processor)) {
+            assertFalse(reloader.apply(OctoAssembler.assemble(SPIN.replace("spin", "again-and-again"))));
+        }
+
+        assertEquals(0x200, processor.getProgramCounter());
+        assertEquals(0, processor.getRegister(0));
+    }
+
+    private OctoHotReloader startReloader(OctoAssembler.Assembly initial, Processor processor) throws IOException {
+        Path source = directory.resolve("spin.8o");
+        Files.writeString(source, SPIN);
+        List<String> log = new ArrayList<>();
+        return new OctoHotReloader(source, initial, processor, Runnable::run, log::add);
+    }
+
+    private static byte[] loadResource(String name) throws IOException {
+        try (InputStream stream = ClassLoader.getSystemResourceAsStream(name)) {
+            return stream.readAllBytes();
+        }
+    }
+}
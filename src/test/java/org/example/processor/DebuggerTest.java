@@ -0,0 +1,163 @@
+package org.example.processor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DebuggerTest {
+    private static final byte[] PROGRAM = {
+            0x60, 0x00,             // 200: V0 = 0
+            0x70, 0x01,             // 202: V0 += 1
+            0x22, 0x0A,             // 204: call 0x20A
+            0x12, 0x02,             // 206: jump 0x202
+            0x00, 0x00,             // 208
+            (byte) 0xA3, 0x00,      // 20A: I = 0x300
+            (byte) 0xF0, 0x33,      // 20C: BCD of V0 at I
+            0x61, 0x05,             // 20E: V1 = 5
+            0x00, (byte) 0xEE       // 210: return
+    };
+
+    private static Debugger debugger() {
+        Processor processor = new Processor(Quirks.DEFAULT);
+        processor.loadMemory(PROGRAM);
+        return new Debugger(processor);
+    }
+
+    @Test
+    void shouldNotBeActiveWithoutBreakpoints() {
+        Debugger debugger = debugger();
+
+        assertFalse(debugger.isActive());
+        debugger.addBreakpoint(0x204);
+        assertTrue(debugger.isActive());
+        debugger.removeBreakpoint(0x204);
+        assertFalse(debugger.isActive());
+    }
+
+    @Test
+    void shouldStopAtBreakpointAndResumePastIt() {
+        Debugger debugger = debugger();
+        debugger.addBreakpoint(0x204);
+
+        Debugger.Stop first = debugger.run(1000);
+        Debugger.Stop second = debugger.run(1000);
+
+        assertEquals(new Debugger.Stop(Debugger.StopReason.BREAKPOINT, 0x204, ""), first);
+        assertEquals(0x204, second.programCounter());
+        assertEquals(2, debugger.getProcessor().register[0]);
+    }
+
+    @Test
+    void shouldStopAtConditionalBreakpointOnlyWhenConditionHolds() {
+        Debugger debugger = debugger();
+        debugger.addBreakpoint(0x204, Debugger.Condition.parse("V0 == 0x05"));
+
+        Debugger.Stop stop = debugger.run(1000);
+
+        assertEquals(Debugger.StopReason.BREAKPOINT, stop.reason());
+        assertEquals(5, debugger.getProcessor().register[0]);
+    }
+
+    @Test
+    void shouldStopBeforeWatchedWrite() {
+        Debugger debugger = debugger();
+        debugger.addWatchpoint(0x302, 0x302);
+
+        Debugger.Stop stop = debugger.run(1000);
+
+        assertEquals(Debugger.StopReason.WATCHPOINT, stop.reason());
+        assertEquals(0x20C, stop.programCounter());
+        assertEquals("LD B, V0 writes 0x302", stop.detail());
+    }
+
+    @Test
+    void shouldStepOverCall() {
+        Debugger debugger = debugger();
+        debugger.addBreakpoint(0x204);
+        debugger.run(1000);
+
+        debugger.stepOver();
+        Debugger.Stop stop = debugger.run(1000);
+
+        assertEquals(new Debugger.Stop(Debugger.StopReason.RETURN, 0x206, ""), stop);
+        assertEquals(5, debugger.getProcessor().register[1]);
+    }
+
+    @Test
+    void shouldStepOverPlainInstruction() {
+        Debugger debugger = debugger();
+        debugger.pause();
+
+        debugger.stepOver();
+        Debugger.Stop stop = debugger.run(1000);
+
+        assertEquals(new Debugger.Stop(Debugger.StopReason.STEP, 0x202, ""), stop);
+    }
+
+    @Test
+    void shouldRunToReturn() {
+        Debugger debugger = debugger();
+        debugger.addBreakpoint(0x20E);
+        debugger.run(1000);
+        debugger.removeBreakpoint(0x20E);
+
+        debugger.stepOut();
+        Debugger.Stop stop = debugger.run(1000);
+
+        assertEquals(new Debugger.Stop(Debugger.StopReason.RETURN, 0x206, ""), stop);
+        assertFalse(debugger.isInSubroutine());
+        assertThrows(IllegalStateException.class, debugger::stepOut);
+    }
+
+    @Test
+    void shouldFreezeFramesWhilePaused() {
+        Debugger debugger = debugger();
+        Processor processor = debugger.getProcessor();
+        processor.setDelayTimer(5);
+        FrameScheduler scheduler = new FrameScheduler(processor, 10);
+        scheduler.setDebugger(debugger);
+        debugger.addBreakpoint(0x20E);
+
+        scheduler.runFrame();
+        int executed = scheduler.runFrame();
+
+        assertTrue(debugger.isPaused());
+        assertEquals(0, executed);
+        assertEquals(4, processor.getDelayTimer());
+        assertEquals(0x20E, processor.programCounter);
+    }
+
+    @Test
+    void shouldRejectMalformedCondition() {
+        assertThrows(IllegalArgumentException.class, () -> Debugger.Condition.parse("V0 = 1"));
+        assertThrows(IllegalArgumentException.class, () -> Debugger.Condition.parse("VG == 1"));
+        assertEquals("DT <= 0x10", Debugger.Condition.parse("dt <= 16").toString());
+    }
+
+    @Test
+    void shouldRejectAddressesOutsideMemory() {
+        Debugger debugger = debugger();
+
+        assertThrows(IllegalArgumentException.class, () -> debugger.addBreakpoint(0x1000));
+        assertThrows(IllegalArgumentException.class, () -> debugger.addBreakpoint(-1));
+        assertThrows(IllegalArgumentException.class, () -> debugger.addWatchpoint(0xFFF, 0x1000));
+        assertThrows(IllegalArgumentException.class, () -> debugger.addWatchpoint(0x302, 0x301));
+        assertFalse(debugger.hasBreakpoint(0x1000));
+        assertFalse(debugger.isActive());
+    }
+
+    @Test
+    void shouldNotReadPastMemoryAtTheLastAddress() {
+        Debugger debugger = debugger();
+        debugger.addWatchpoint(0x300, 0x300);
+        debugger.getProcessor().programCounter = 0xFFF;
+
+        assertTrue(debugger.beforeCycle());
+        debugger.pause();
+        debugger.stepOver();
+        assertTrue(debugger.beforeCycle());
+    }
+}
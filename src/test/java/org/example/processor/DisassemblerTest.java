@@ -0,0 +1,18 @@
+package org.example.processor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DisassemblerTest {
+    @Test
+    void shouldFormatInstructions() {
+        assertEquals("CLS", Disassembler.format(0x00E0));
+        assertEquals("CALL 0x2A4", Disassembler.format(0x22A4));
+        assertEquals("SE V3, 0x1F", Disassembler.format(0x331F));
+        assertEquals("SUBN VA, VB", Disassembler.format(0x8AB7));
+        assertEquals("DRW V1, V2, 15", Disassembler.format(0xD12F));
+        assertEquals("LD [I], V7", Disassembler.format(0xF755));
+        assertEquals("DW 0x5121", Disassembler.format(0x5121));
+    }
+}
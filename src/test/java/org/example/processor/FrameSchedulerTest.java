@@ -0,0 +1,67 @@
+package org.example.processor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FrameSchedulerTest {
+    @Test
+    void shouldExecuteConfiguredCyclesAndDecrementTimersOnce() {
+        Processor processor = new Processor(Quirks.DEFAULT);
+        processor.loadMemory(new byte[]{0x70, 0x01, 0x12, 0x00}); // V0 += 1, jump to start
+        processor.setDelayTimer(10);
+        FrameScheduler scheduler = new FrameScheduler(processor, 10);
+
+        int executed = scheduler.runFrame();
+
+        assertEquals(10, executed);
+        assertEquals(5, processor.register[0]);
+        assertEquals(9, processor.getDelayTimer());
+        assertEquals(1, scheduler.getFrames());
+    }
+
+    @Test
+    void shouldEndFrameAfterSpriteWhenDisplayWaitQuirk() {
+        Processor processor = new Processor(Quirks.COSMAC_VIP);
+        processor.loadMemory(new byte[]{
+                0x60, 0x01,             // V0 = 1
+                (byte) 0xD0, 0x05,      // draw 5 rows at V0, V0
+                0x12, 0x04              // jump to itself
+        });
+        FrameScheduler scheduler = new FrameScheduler(processor, 10);
+
+        assertEquals(2, scheduler.runFrame());
+        assertEquals(10, scheduler.runFrame());
+    }
+
+    @Test
+    void shouldLowerCyclesPerFrameWhenOverBudget() {
+        Processor processor = new Processor(Quirks.DEFAULT);
+        processor.loadMemory(new byte[]{0x12, 0x00});
+        FrameScheduler scheduler = new FrameScheduler(processor, 1000);
+        scheduler.setBudgetNanos(1);
+
+        scheduler.runFrame();
+
+        assertEquals(1, scheduler.getCyclesPerFrame());
+    }
+
+    @Test
+    void shouldKeepConfiguredCyclesPerFrameWithinBudget() {
+        Processor processor = new Processor(Quirks.DEFAULT);
+        processor.loadMemory(new byte[]{0x12, 0x00});
+        FrameScheduler scheduler = new FrameScheduler(processor, 12);
+        scheduler.setBudgetNanos(FrameScheduler.FRAME_NANOS * 1000);
+
+        for (int frame = 0; frame < 10; frame++) {
+            assertEquals(12, scheduler.runFrame());
+        }
+        assertEquals(12, scheduler.getCyclesPerFrame());
+    }
+
+    @Test
+    void shouldConvertClockToCyclesPerFrame() {
+        assertEquals(12, FrameScheduler.cyclesPerFrame(700));
+        assertEquals(1, FrameScheduler.cyclesPerFrame(10));
+    }
+}
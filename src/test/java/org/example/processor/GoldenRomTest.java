@@ -0,0 +1,142 @@
+package org.example.processor;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Runs every bundled test ROM to a fixed cycle count and compares the incrementally maintained screen hash with
+ * the stored golden value. Run with -Dgolden.update=true to rewrite the golden files after an intended change.
+ */
+class GoldenRomTest {
+    private static final int FRAMES = 600;
+    private static final int CYCLES_PER_FRAME = 12;
+    private static final Path GOLDEN_DIRECTORY = Path.of("src", "test", "resources", "golden");
+    private static final Path DIFF_DIRECTORY = Path.of("target", "golden-diff");
+    private static final char PIXEL_ON_CHAR = '#';
+    private static final char PIXEL_OFF_CHAR = '.';
+    private static final char PIXEL_MISSING_CHAR = '-';
+    private static final char PIXEL_EXTRA_CHAR = '+';
+
+    @Test
+    void shouldMatchGoldenScreenForEveryTestRom() throws IOException, URISyntaxException {
+        Path romDirectory = Path.of(ClassLoader.getSystemResource("test_roms").toURI());
+        List<Path> roms;
+        try (Stream<Path> files = Files.list(romDirectory)) {
+            roms = files.filter(path -> path.toString().endsWith(".ch8")).sorted().collect(Collectors.toList());
+        }
+        boolean update = Boolean.getBoolean("golden.update");
+
+        String failures = roms.parallelStream()
+                .map(rom -> check(rom, update))
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(System.lineSeparator()));
+
+        assertTrue(roms.size() >= 5);
+        assertTrue(failures.isEmpty(), failures);
+    }
+
+    private static String check(Path rom, boolean update) {
+        try {
+            Processor processor = new Processor();
+            processor.seedRandom(0);
+            processor.loadMemory(Files.readAllBytes(rom));
+            for (int frame = 0; frame < FRAMES; frame++) {
+                for (int cycle = 0; cycle < CYCLES_PER_FRAME; cycle++) {
+                    processor.doCycle();
+                }
+                processor.advanceTime(1);
+            }
+            String name = rom.getFileName().toString().replace(".ch8", "");
+            long hash = processor.getScreenHash();
+            boolean[][] actual = processor.getScreen();
+            Path golden = GOLDEN_DIRECTORY.resolve(name + ".txt");
+            if (update) {
+                Files.writeString(golden, String.format("%016x%n", hash) + toAscii(actual));
+                return null;
+            }
+            List<String> lines = Files.readAllLines(golden);
+            if (Long.parseUnsignedLong(lines.get(0), 16) == hash) {
+                return null;
+            }
+            boolean[][] expected = fromAscii(lines.subList(1, lines.size()));
+            Path image = writeDiffImage(name, expected, actual);
+            return String.format("%s: screen hash %016x, expected %s (diff image %s)%n%s", name, hash, lines.get(0),
+                    image, toAsciiDiff(expected, actual));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toAscii(boolean[][] screen) {
+        StringBuilder ascii = new StringBuilder();
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            for (int x = 0; x < SCREEN_WIDTH; x++) {
+                ascii.append(screen[x][y] ? PIXEL_ON_CHAR : PIXEL_OFF_CHAR);
+            }
+            ascii.append(System.lineSeparator());
+        }
+        return ascii.toString();
+    }
+
+    private static boolean[][] fromAscii(List<String> lines) {
+        boolean[][] screen = new boolean[SCREEN_WIDTH][SCREEN_HEIGHT];
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            for (int x = 0; x < SCREEN_WIDTH; x++) {
+                screen[x][y] = lines.get(y).charAt(x) == PIXEL_ON_CHAR;
+            }
+        }
+        return screen;
+    }
+
+    private static String toAsciiDiff(boolean[][] expected, boolean[][] actual) {
+        StringBuilder ascii = new StringBuilder();
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            for (int x = 0; x < SCREEN_WIDTH; x++) {
+                char pixel;
+                if (expected[x][y] == actual[x][y]) {
+                    pixel = actual[x][y] ? PIXEL_ON_CHAR : PIXEL_OFF_CHAR;
+                } else {
+                    pixel = actual[x][y] ? PIXEL_EXTRA_CHAR : PIXEL_MISSING_CHAR;
+                }
+                ascii.append(pixel);
+            }
+            ascii.append(System.lineSeparator());
+        }
+        return ascii.toString();
+    }
+
+    // Expected, actual and the difference side by side, 4x scaled
+    private static Path writeDiffImage(String name, boolean[][] expected, boolean[][] actual) throws IOException {
+        int scale = 4;
+        BufferedImage image = new BufferedImage(3 * SCREEN_WIDTH * scale, SCREEN_HEIGHT * scale,
+                BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < SCREEN_HEIGHT * scale; y++) {
+            for (int x = 0; x < SCREEN_WIDTH * scale; x++) {
+                boolean expectedPixel = expected[x / scale][y / scale];
+                boolean actualPixel = actual[x / scale][y / scale];
+                image.setRGB(x, y, expectedPixel ? 0xFFFFFF : 0);
+                image.setRGB(SCREEN_WIDTH * scale + x, y, actualPixel ? 0xFFFFFF : 0);
+                image.setRGB(2 * SCREEN_WIDTH * scale + x, y, expectedPixel == actualPixel ? 0 : 0xFF0000);
+            }
+        }
+        Files.createDirectories(DIFF_DIRECTORY);
+        Path path = DIFF_DIRECTORY.resolve(name + ".png");
+        ImageIO.write(image, "png", path.toFile());
+        return path;
+    }
+}
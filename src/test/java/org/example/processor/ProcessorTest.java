@@ -4,6 +4,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -269,6 +272,66 @@ class ProcessorTest {
         assertEquals(registerXValue - registerYValue < 0x0, processor.register[0xF] == 0);
     }
 
+    @Test
+    void shouldClearVFWithoutCarryWhen8XY4Opcode() {
+        processor.register[0xF] = 0x05;
+        processor.register[0x1] = 0x01;
+        processor.register[0x2] = 0x02;
+        processor.opcode = 0x8124;
+        processor.decodeInstruction();
+
+        assertEquals(0x03, processor.register[0x1]);
+        assertEquals(0, processor.register[0xF]);
+    }
+
+    @Test
+    void shouldLeaveTheCarryFlagInVFWhen8FY4Opcode() {
+        processor.register[0xF] = 0xF0;
+        processor.register[0x3] = 0x20;
+        processor.opcode = 0x8F34;
+        processor.decodeInstruction();
+
+        assertEquals(1, processor.register[0xF]);
+    }
+
+    @Test
+    void shouldLeaveTheBorrowFlagInVFWhen8FY5Opcode() {
+        processor.register[0xF] = 0x10;
+        processor.register[0x3] = 0x20;
+        processor.opcode = 0x8F35;
+        processor.decodeInstruction();
+
+        assertEquals(0, processor.register[0xF]);
+    }
+
+    @Test
+    void shouldLeaveTheBorrowFlagInVFWhen8FY7Opcode() {
+        processor.register[0xF] = 0x20;
+        processor.register[0x3] = 0x10;
+        processor.opcode = 0x8F37;
+        processor.decodeInstruction();
+
+        assertEquals(0, processor.register[0xF]);
+    }
+
+    @Test
+    void shouldLeaveTheShiftedOutBitInVFWhen8FF6Opcode() {
+        processor.register[0xF] = 0x03;
+        processor.opcode = 0x8FF6;
+        processor.decodeInstruction();
+
+        assertEquals(1, processor.register[0xF]);
+    }
+
+    @Test
+    void shouldLeaveTheShiftedOutBitInVFWhen8FFEOpcode() {
+        processor.register[0xF] = 0x81;
+        processor.opcode = 0x8FFE;
+        processor.decodeInstruction();
+
+        assertEquals(1, processor.register[0xF]);
+    }
+
     @Test
     void shouldDivideXBy2When8XY6Opcode() {
         int instruction = 0x8006;
@@ -437,7 +500,7 @@ class ProcessorTest {
         int registerSelector = 0x0800;
         int delayTimerValue = 0x0C;
 
-        processor.delayTimer = delayTimerValue;
+        processor.setDelayTimer(delayTimerValue);
         processor.opcode = instruction | registerSelector;
         processor.decodeInstruction();
 
@@ -467,7 +530,7 @@ class ProcessorTest {
         processor.opcode = instruction | registerSelector;
         processor.decodeInstruction();
 
-        assertEquals(delayTimerValue, processor.delayTimer);
+        assertEquals(delayTimerValue, processor.getDelayTimer());
     }
 
     @Test
@@ -480,7 +543,36 @@ class ProcessorTest {
         processor.opcode = instruction | registerSelector;
         processor.decodeInstruction();
 
-        assertEquals(soundTimerValue, processor.soundTimer);
+        assertEquals(soundTimerValue, processor.getSoundTimer());
+    }
+
+    @Test
+    void shouldCountTimersDownAgainstTheEmulatedClock() {
+        processor.setDelayTimer(100);
+        processor.advanceTime(40);
+        processor.setSoundTimer(3);
+
+        processor.advanceTime(2);
+        assertEquals(58, processor.getDelayTimer());
+        assertTrue(processor.isSound());
+
+        processor.advanceTime(1_000_000);
+        assertEquals(0, processor.getDelayTimer());
+        assertFalse(processor.isSound());
+    }
+
+    @Test
+    void shouldCountTimersDownAgainstTheWallClock() {
+        processor.setDelayTimer(100);
+        processor.advanceTime(10);
+        processor.setTimerClock(TimerClock.WALL_CLOCK);
+
+        processor.advanceTime(50);
+        processor.wallClockOrigin -= 30 * TimerClock.TICK_NANOS;
+
+        // 30 ticks of wall clock have passed, plus whatever this test took
+        int delay = processor.getDelayTimer();
+        assertTrue(delay <= 60 && delay > 50, "delay timer " + delay);
     }
 
     @Test
@@ -573,4 +665,197 @@ class ProcessorTest {
         }
         assertTrue(isCorrect);
     }
+
+    @Test
+    void shouldShiftRegisterYWhen8XY6OpcodeWithVipQuirks() {
+        Processor vip = new Processor(Quirks.COSMAC_VIP);
+        int registerXSelector = 0x0100;
+        int registerYSelector = 0x0020;
+        int registerYValue = 0x0B;
+
+        vip.register[registerYSelector >>> 4] = registerYValue;
+        vip.opcode = 0x8006 | registerXSelector | registerYSelector;
+        vip.decodeInstruction();
+
+        assertEquals(registerYValue >>> 1, vip.register[registerXSelector >>> 8]);
+        assertEquals(1, vip.register[0xF]);
+    }
+
+    @Test
+    void shouldShiftRegisterYWhen8XYEOpcodeWithVipQuirks() {
+        Processor vip = new Processor(Quirks.COSMAC_VIP);
+        int registerXSelector = 0x0100;
+        int registerYSelector = 0x0020;
+        int registerYValue = 0x81;
+
+        vip.register[registerYSelector >>> 4] = registerYValue;
+        vip.opcode = 0x800E | registerXSelector | registerYSelector;
+        vip.decodeInstruction();
+
+        assertEquals(0x02, vip.register[registerXSelector >>> 8]);
+        assertEquals(1, vip.register[0xF]);
+    }
+
+    @Test
+    void shouldIncrementIndexWhenFX55OpcodeWithVipQuirks() {
+        Processor vip = new Processor(Quirks.COSMAC_VIP);
+        int registerSelector = 0x0300;
+        int indexValue = 0x400;
+
+        vip.indexRegister = indexValue;
+        vip.opcode = 0xF055 | registerSelector;
+        vip.decodeInstruction();
+
+        assertEquals(indexValue + 4, vip.indexRegister);
+    }
+
+    @Test
+    void shouldIncrementIndexByXWhenFX65OpcodeWithChip48Quirks() {
+        Processor chip48 = new Processor(Quirks.CHIP_48);
+        int registerSelector = 0x0300;
+        int indexValue = 0x400;
+
+        chip48.indexRegister = indexValue;
+        chip48.opcode = 0xF065 | registerSelector;
+        chip48.decodeInstruction();
+
+        assertEquals(indexValue + 3, chip48.indexRegister);
+    }
+
+    @Test
+    void shouldJumpWithRegisterXWhenBXNNOpcodeWithSuperChipQuirks() {
+        Processor superChip = new Processor(Quirks.SUPER_CHIP);
+        int address = 0x0234;
+        int registerValue = 0x05;
+
+        superChip.register[0x2] = registerValue;
+        superChip.opcode = 0xB000 | address;
+        superChip.decodeInstruction();
+
+        assertEquals(address + registerValue, superChip.programCounter);
+    }
+
+    @Test
+    void shouldResetFlagWhen8XY1OpcodeWithVipQuirks() {
+        Processor vip = new Processor(Quirks.COSMAC_VIP);
+
+        vip.register[0xF] = 1;
+        vip.opcode = 0x8121;
+        vip.decodeInstruction();
+
+        assertEquals(0, vip.register[0xF]);
+    }
+
+    @Test
+    void shouldClipSpriteAtScreenEdgeWhenDXYNOpcodeWithClipQuirk() {
+        Processor clipping = new Processor(Quirks.DEFAULT.withClipSprites(true));
+        int spriteInitAddress = 0x300;
+
+        clipping.memory[spriteInitAddress] = 0xFF;
+        clipping.register[0x0] = Processor.SCREEN_WIDTH - 4;
+        clipping.register[0x1] = 0;
+        clipping.indexRegister = spriteInitAddress;
+        clipping.opcode = 0xD011;
+        clipping.decodeInstruction();
+
+        for (int x = 0; x < 4; x++) {
+            assertTrue(clipping.screen[Processor.SCREEN_WIDTH - 4 + x][0]);
+            assertFalse(clipping.screen[x][0]);
+        }
+    }
+
+    @Test
+    void shouldReuseArraysWhenInit() {
+        int[] memory = processor.memory;
+        boolean[][] screen = processor.screen;
+
+        processor.memory[0x300] = 0xAB;
+        processor.register[0x3] = 0x12;
+        processor.screen[1][2] = true;
+        processor.programCounter = 0x456;
+        processor.init();
+
+        assertSame(memory, processor.memory);
+        assertSame(screen, processor.screen);
+        assertEquals(0, processor.memory[0x300]);
+        assertEquals(0, processor.register[0x3]);
+        assertFalse(processor.screen[1][2]);
+        assertEquals(Processor.FIRST_PROG_INSTR_ADDRESS, processor.programCounter);
+    }
+
+    @Test
+    void shouldLoadProgramAndClearLeftoversWhenResetWithImage() {
+        RomImage image = RomImage.of(new byte[]{0x12, 0x34});
+
+        processor.memory[0x300] = 0xAB;
+        processor.stackPointer = 0x3;
+        processor.reset(image);
+
+        assertEquals(0x12, processor.memory[Processor.FIRST_PROG_INSTR_ADDRESS]);
+        assertEquals(0x34, processor.memory[Processor.FIRST_PROG_INSTR_ADDRESS + 1]);
+        assertEquals(0xF0, processor.memory[0]);
+        assertEquals(0, processor.memory[0x300]);
+        assertEquals(0, processor.stackPointer);
+    }
+
+    @Test
+    void shouldLoadMemoryFromTheProgramContentsAtTheTimeOfTheLoad() {
+        byte[] program = {0x12, 0x34};
+
+        processor.memory[0x300] = 0xAB;
+        processor.loadMemory(program);
+        program[0] = 0x56;
+        Processor other = new Processor();
+        other.loadMemory(new byte[]{0x12, 0x34});
+        other.loadMemory(program);
+
+        assertEquals(0x12, processor.memory[Processor.FIRST_PROG_INSTR_ADDRESS]);
+        assertEquals(0x34, processor.memory[Processor.FIRST_PROG_INSTR_ADDRESS + 1]);
+        assertEquals(0xF0, processor.memory[0]);
+        assertEquals(0, processor.memory[0x300]);
+        assertEquals(StateHash.memory(processor.memory), processor.memoryHash);
+        assertEquals(0x56, other.memory[Processor.FIRST_PROG_INSTR_ADDRESS]);
+        assertEquals(StateHash.memory(other.memory), other.memoryHash);
+    }
+
+    @Test
+    void shouldPackTheScreenLeftmostPixelFirst() {
+        long[] rows = new long[Processor.SCREEN_HEIGHT];
+        processor.screen[0][3] = true;
+        processor.screen[63][3] = true;
+        processor.screen[1][31] = true;
+
+        Processor.packScreen(processor.getScreen(), rows);
+
+        assertEquals(Long.MIN_VALUE | 1, rows[3]);
+        assertEquals(1L << 62, rows[31]);
+        assertEquals(0, rows[0]);
+    }
+
+    @Test
+    void shouldRestoreScreenHashWhenSpriteIsErased() {
+        int spriteInitAddress = 0x300;
+
+        processor.memory[spriteInitAddress] = 0xA5;
+        processor.indexRegister = spriteInitAddress;
+        processor.opcode = 0xD011;
+        processor.decodeInstruction();
+        long drawnHash = processor.getScreenHash();
+        processor.decodeInstruction();
+
+        assertNotEquals(0L, drawnHash);
+        assertEquals(0L, processor.getScreenHash());
+    }
+
+    @Test
+    void shouldResetScreenHashWhenCleanScreen() {
+        processor.memory[0x300] = 0xFF;
+        processor.indexRegister = 0x300;
+        processor.opcode = 0xD011;
+        processor.decodeInstruction();
+
+        processor.cleanScreen();
+
+        assertEquals(0L, processor.getScreenHash());
+    }
 }
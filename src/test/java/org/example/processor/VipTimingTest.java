@@ -0,0 +1,61 @@
+package org.example.processor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VipTimingTest {
+    @Test
+    void shouldExecuteFrameBudgetOfCheapInstructions() {
+        Processor processor = new Processor(Quirks.DEFAULT);
+        processor.loadMemory(new byte[]{0x12, 0x00}); // jump to itself, 23 machine cycles
+        VipTiming timing = new VipTiming(processor);
+
+        int executed = timing.runFrame();
+
+        assertEquals((VipTiming.MACHINE_CYCLES_PER_FRAME + 22) / 23, executed);
+    }
+
+    @Test
+    void shouldCarryOverrunIntoNextFrame() {
+        Processor processor = new Processor(Quirks.DEFAULT);
+        processor.loadMemory(new byte[]{0x12, 0x00});
+        VipTiming timing = new VipTiming(processor);
+
+        int executed = 0;
+        for (int frame = 0; frame < 23; frame++) {
+            executed += timing.runFrame();
+        }
+
+        assertEquals(VipTiming.MACHINE_CYCLES_PER_FRAME, executed);
+    }
+
+    @Test
+    void shouldEndFrameAfterSpriteWhenDisplayWaitQuirk() {
+        Processor processor = new Processor(Quirks.COSMAC_VIP);
+        processor.loadMemory(new byte[]{
+                0x60, 0x01,             // V0 = 1
+                (byte) 0xD0, 0x05,      // draw 5 rows at V0, V0
+                0x12, 0x04              // jump to itself
+        });
+        VipTiming timing = new VipTiming(processor);
+
+        int executed = timing.runFrame();
+
+        assertEquals(2, executed);
+        assertEquals(0x204, processor.programCounter);
+    }
+
+    @Test
+    void shouldDecrementTimersOncePerFrame() {
+        Processor processor = new Processor(Quirks.DEFAULT);
+        processor.loadMemory(new byte[]{0x12, 0x00});
+        processor.setDelayTimer(10);
+        VipTiming timing = new VipTiming(processor);
+
+        timing.runFrame();
+        timing.runFrame();
+
+        assertEquals(8, processor.getDelayTimer());
+    }
+}
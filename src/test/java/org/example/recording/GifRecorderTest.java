@@ -0,0 +1,75 @@
+package org.example.recording;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GifRecorderTest {
+    private static final int SCALE = 3;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldWriteDistinctFramesOnlyAndDecodeToLastFrame() throws IOException {
+        Path path = directory.resolve("recording.gif");
+        boolean[][] screen = new boolean[SCREEN_WIDTH][SCREEN_HEIGHT];
+
+        try (GifRecorder recorder = new GifRecorder(path, SCALE)) {
+            for (int frame = 0; frame < 30; frame++) {
+                screen[(frame * 7) % SCREEN_WIDTH][(frame * 3) % SCREEN_HEIGHT] ^= frame % 3 != 0;
+                recorder.submit(screen);
+            }
+        }
+
+        BufferedImage canvas = new BufferedImage(SCREEN_WIDTH * SCALE, SCREEN_HEIGHT * SCALE,
+                BufferedImage.TYPE_INT_RGB);
+        int frames;
+        try (ImageInputStream stream = ImageIO.createImageInputStream(path.toFile())) {
+            ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+            reader.setInput(stream);
+            frames = reader.getNumImages(true);
+            for (int index = 0; index < frames; index++) {
+                BufferedImage image = reader.read(index);
+                Node descriptor = findNode(reader.getImageMetadata(index), "ImageDescriptor");
+                int left = Integer.parseInt(attribute(descriptor, "imageLeftPosition"));
+                int top = Integer.parseInt(attribute(descriptor, "imageTopPosition"));
+                canvas.getGraphics().drawImage(image, left, top, null);
+            }
+        }
+
+        assertEquals(21, frames);
+        for (int y = 0; y < SCREEN_HEIGHT * SCALE; y++) {
+            for (int x = 0; x < SCREEN_WIDTH * SCALE; x++) {
+                boolean isWhite = (canvas.getRGB(x, y) & 0xFFFFFF) == 0xFFFFFF;
+                assertEquals(screen[x / SCALE][y / SCALE], isWhite, "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    private static Node findNode(IIOMetadata metadata, String name) {
+        Node root = metadata.getAsTree(metadata.getNativeMetadataFormatName());
+        for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeName().equals(name)) {
+                return node;
+            }
+        }
+        throw new IllegalStateException("Missing " + name);
+    }
+
+    private static String attribute(Node node, String name) {
+        return node.getAttributes().getNamedItem(name).getNodeValue();
+    }
+}
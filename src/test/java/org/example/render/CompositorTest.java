@@ -0,0 +1,139 @@
+package org.example.render;
+
+import org.junit.jupiter.api.Test;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompositorTest {
+    private static final int SCALE = 3;
+    private static final int WHITE = 0xFFFFFFFF;
+    private static final int BLACK = 0xFF000000;
+
+    @Test
+    void shouldScaleLitPixelsIntoArgbBlocks() throws InterruptedException {
+        try (Compositor compositor = new Compositor(SCALE, Compositor.Persistence.NONE, 0f, new ScalarKernel())) {
+            compositor.submit(screenWithPixel(2, 1));
+            int[] pixels = awaitImage(compositor);
+
+            assertEquals(SCREEN_WIDTH * SCALE * SCREEN_HEIGHT * SCALE, pixels.length);
+            assertEquals(WHITE, pixel(pixels, 2 * SCALE, SCALE));
+            assertEquals(WHITE, pixel(pixels, 3 * SCALE - 1, 2 * SCALE - 1));
+            assertEquals(BLACK, pixel(pixels, 3 * SCALE, SCALE));
+            assertEquals(BLACK, pixel(pixels, 0, 0));
+        }
+    }
+
+    @Test
+    void shouldKeepErasedPixelLitForOneFrameWithLastTwoPersistence() throws InterruptedException {
+        try (Compositor compositor = new Compositor(SCALE, Compositor.Persistence.LAST_TWO, 0f, new ScalarKernel())) {
+            compositor.submit(screenWithPixel(5, 5));
+            awaitImage(compositor);
+            // the pixel moves, so that each frame changes the image and is published
+            compositor.submit(screenWithPixel(9, 9));
+            int[] erasedOnce = awaitFrames(compositor, 2);
+
+            assertEquals(WHITE, pixel(erasedOnce, 5 * SCALE, 5 * SCALE));
+            assertEquals(WHITE, pixel(erasedOnce, 9 * SCALE, 9 * SCALE));
+
+            compositor.submit(screenWithPixel(9, 9));
+            int[] erasedTwice = awaitFrames(compositor, 3);
+
+            assertEquals(BLACK, pixel(erasedTwice, 5 * SCALE, 5 * SCALE));
+            assertEquals(WHITE, pixel(erasedTwice, 9 * SCALE, 9 * SCALE));
+        }
+    }
+
+    @Test
+    void shouldFadeErasedPixelWithPhosphorPersistence() throws InterruptedException {
+        try (Compositor compositor = new Compositor(1, Compositor.Persistence.PHOSPHOR, 0.5f, new ScalarKernel())) {
+            compositor.submit(screenWithPixel(0, 0));
+            awaitImage(compositor);
+            compositor.submit(new boolean[SCREEN_WIDTH][SCREEN_HEIGHT]);
+            int[] pixels = awaitFrames(compositor, 2);
+
+            assertEquals(0xFF808080, pixels[0]);
+        }
+    }
+
+    @Test
+    void shouldNotPublishUnchangedImage() throws InterruptedException {
+        try (Compositor compositor = new Compositor(1, Compositor.Persistence.NONE, 0f, new ScalarKernel())) {
+            compositor.submit(screenWithPixel(1, 1));
+            awaitImage(compositor);
+            compositor.submit(screenWithPixel(1, 1));
+            awaitComposed(compositor, 2);
+
+            assertNull(compositor.poll());
+        }
+    }
+
+    @Test
+    void shouldProduceSameColorsWithEveryKernel() {
+        float[] lit = new float[SCREEN_WIDTH * SCREEN_HEIGHT + 3];
+        float[] history = new float[lit.length];
+        for (int i = 0; i < lit.length; i++) {
+            lit[i] = i % 3 == 0 ? 1f : 0f;
+            history[i] = (i % 17) / 16f;
+        }
+        Kernel scalar = new ScalarKernel();
+        Kernel vector = new VectorKernel();
+        float[] scalarIntensity = new float[lit.length];
+        float[] vectorIntensity = new float[lit.length];
+        int[] scalarColors = new int[lit.length];
+        int[] vectorColors = new int[lit.length];
+        int[] scalarPixels = new int[100];
+        int[] vectorPixels = new int[100];
+
+        scalar.fold(lit, history, 0.7f, scalarIntensity);
+        vector.fold(lit, history, 0.7f, vectorIntensity);
+        scalar.shade(scalarIntensity, 0x33FF80, scalarColors);
+        vector.shade(vectorIntensity, 0x33FF80, vectorColors);
+        scalar.fill(scalarPixels, 7, 61, 0xFF123456);
+        vector.fill(vectorPixels, 7, 61, 0xFF123456);
+
+        assertArrayEquals(scalarIntensity, vectorIntensity);
+        assertArrayEquals(scalarColors, vectorColors);
+        assertArrayEquals(scalarPixels, vectorPixels);
+    }
+
+    private static boolean[][] screenWithPixel(int x, int y) {
+        boolean[][] screen = new boolean[SCREEN_WIDTH][SCREEN_HEIGHT];
+        screen[x][y] = true;
+        return screen;
+    }
+
+    private static int pixel(int[] pixels, int x, int y) {
+        return pixels[y * SCREEN_WIDTH * SCALE + x];
+    }
+
+    private static int[] awaitImage(Compositor compositor) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        int[] pixels;
+        while ((pixels = compositor.poll()) == null) {
+            assertTrue(System.currentTimeMillis() < deadline, "no image composited");
+            Thread.sleep(1);
+        }
+        return pixels;
+    }
+
+    private static int[] awaitFrames(Compositor compositor, long frames) throws InterruptedException {
+        awaitComposed(compositor, frames);
+        int[] pixels = compositor.poll();
+        assertNotNull(pixels);
+        return pixels;
+    }
+
+    private static void awaitComposed(Compositor compositor, long frames) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (compositor.getComposedFrames() < frames) {
+            assertTrue(System.currentTimeMillis() < deadline, "frames not composited");
+            Thread.sleep(1);
+        }
+    }
+}
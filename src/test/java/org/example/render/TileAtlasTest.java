@@ -0,0 +1,70 @@
+package org.example.render;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TileAtlasTest {
+    private static final int SCALE = 2;
+
+    @Test
+    void shouldLayOutTilesInASquareGrid() {
+        TileAtlas atlas = new TileAtlas(100, SCALE);
+
+        assertEquals(10, atlas.getColumns());
+        assertEquals(10 * (SCREEN_WIDTH * SCALE + TileAtlas.GAP) - TileAtlas.GAP, atlas.getWidth());
+        assertEquals(10 * (SCREEN_HEIGHT * SCALE + TileAtlas.GAP) - TileAtlas.GAP, atlas.getHeight());
+        assertEquals(0, atlas.tileAt(0, 0));
+        assertEquals(-1, atlas.tileAt(SCREEN_WIDTH * SCALE, 0));
+        assertEquals(13, atlas.tileAt(atlas.tileX(13) + 5, atlas.tileY(13) + 7));
+        assertEquals(TileAtlas.DARK, atlas.getPixels()[0]);
+        assertEquals(TileAtlas.BACKGROUND, atlas.getPixels()[SCREEN_WIDTH * SCALE]);
+    }
+
+    @Test
+    void shouldDrawOnlyChangedPixels() {
+        TileAtlas atlas = new TileAtlas(4, SCALE);
+        atlas.flush((x, y, width, height) -> {
+        });
+        long[] rows = new long[SCREEN_HEIGHT];
+        rows[3] = Long.MIN_VALUE | 1;
+
+        assertEquals(2, atlas.draw(3, rows));
+        assertEquals(0, atlas.draw(3, rows));
+
+        int left = atlas.tileX(3);
+        int top = atlas.tileY(3) + 3 * SCALE;
+        int[] pixels = atlas.getPixels();
+        assertEquals(TileAtlas.LIT, pixels[(top + 1) * atlas.getWidth() + left + 1]);
+        assertEquals(TileAtlas.DARK, pixels[(top + 1) * atlas.getWidth() + left + SCALE]);
+        assertEquals(TileAtlas.LIT, pixels[top * atlas.getWidth() + left + SCREEN_WIDTH * SCALE - 1]);
+    }
+
+    @Test
+    void shouldFlushOneRegionPerChangedTileCoveringTheChangedRows() {
+        TileAtlas atlas = new TileAtlas(200, SCALE);
+        List<int[]> regions = new ArrayList<>();
+        assertEquals(200, atlas.flush((x, y, width, height) -> {
+        }));
+        long[] rows = new long[SCREEN_HEIGHT];
+        rows[5] = 0xF0;
+        rows[9] = 0x0F;
+
+        atlas.draw(7, rows);
+        atlas.draw(150, rows);
+        atlas.draw(7, new long[SCREEN_HEIGHT]);
+        int flushed = atlas.flush((x, y, width, height) -> regions.add(new int[]{x, y, width, height}));
+
+        assertEquals(2, flushed);
+        assertEquals(List.of(atlas.tileX(7), atlas.tileY(7) + 5 * SCALE, SCREEN_WIDTH * SCALE, 5 * SCALE),
+                List.of(regions.get(0)[0], regions.get(0)[1], regions.get(0)[2], regions.get(0)[3]));
+        assertEquals(atlas.tileX(150), regions.get(1)[0]);
+        assertEquals(0, atlas.flush((x, y, width, height) -> {
+        }));
+    }
+}
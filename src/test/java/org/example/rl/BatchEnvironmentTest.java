@@ -0,0 +1,158 @@
+package org.example.rl;
+
+import org.example.processor.FrameScheduler;
+import org.example.processor.Processor;
+import org.example.rom.RomSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.example.processor.Processor.SCREEN_WIDTH;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchEnvironmentTest {
+    // Adds one to the byte at 0x300 in a loop of five instructions, two or three times per 12-cycle frame
+    private static final byte[] COUNTER = {
+            (byte) 0xA3, 0x00, (byte) 0xF0, 0x65, 0x70, 0x01, (byte) 0xF0, 0x55, 0x12, 0x00};
+    // Waits for key 5, then stores V0 = 5 and V1 = 1 at 0x300
+    private static final byte[] KEY_FIVE = {
+            0x60, 0x05, (byte) 0xE0, (byte) 0xA1, 0x12, 0x08, 0x12, 0x02,
+            (byte) 0xA3, 0x00, 0x61, 0x01, (byte) 0xF1, 0x55, 0x12, 0x0E};
+    private static final RomSettings SETTINGS = RomSettings.DEFAULT;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void shouldWriteScreensMatchingTheInterpreter() throws IOException, URISyntaxException {
+        byte[] program = Files.readAllBytes(
+                Path.of(ClassLoader.getSystemResource("test_roms/test_opcode.ch8").toURI()));
+        int size = 70;
+        BatchEnvironment packed = new BatchEnvironment(program, SETTINGS, RewardSpec.NONE, size,
+                BatchEnvironment.ObservationFormat.PACKED_BITS, pool);
+        BatchEnvironment bytes = new BatchEnvironment(program, SETTINGS, RewardSpec.NONE, size,
+                BatchEnvironment.ObservationFormat.UINT8, pool);
+        ByteBuffer packedObservations = ByteBuffer.allocateDirect(size * packed.getObservationBytes());
+        ByteBuffer byteObservations = ByteBuffer.allocateDirect(size * bytes.getObservationBytes());
+
+        for (int step = 0; step < 10; step++) {
+            packed.step(new int[size], 3, packedObservations, new float[size], new boolean[size]);
+            bytes.step(new int[size], 3, byteObservations, new float[size], new boolean[size]);
+        }
+
+        boolean[][] screen = interpret(program, 30);
+        for (int instance = 0; instance < size; instance += size - 1) {
+            for (int y = 0; y < SCREEN_HEIGHT; y++) {
+                long row = packedObservations.getLong(instance * packed.getObservationBytes() + y * Long.BYTES);
+                for (int x = 0; x < SCREEN_WIDTH; x++) {
+                    assertEquals(screen[x][y], row << x < 0);
+                    assertEquals(screen[x][y] ? 1 : 0, byteObservations.get(
+                            instance * bytes.getObservationBytes() + y * SCREEN_WIDTH + x));
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldRewardScoreChangesAndStopWhenDone() {
+        int size = 3;
+        BatchEnvironment environment = new BatchEnvironment(COUNTER, SETTINGS,
+                RewardSpec.parse("score=0x300,done=0x300==12"), size, BatchEnvironment.ObservationFormat.UINT8, pool);
+        ByteBuffer observations = ByteBuffer.allocateDirect(size * environment.getObservationBytes());
+        float[] rewards = new float[size];
+        boolean[] dones = new boolean[size];
+
+        environment.step(new int[size], 2, observations, rewards, dones);
+        assertArrayEquals(new float[]{5, 5, 5}, rewards);
+        assertArrayEquals(new boolean[]{false, false, false}, dones);
+
+        environment.step(new int[size], 2, observations, rewards, dones);
+        assertFalse(dones[0]);
+        environment.step(new int[size], 2, observations, rewards, dones);
+        assertEquals(3, rewards[0]); // stops after the frame that stored 12
+        assertTrue(dones[0]);
+        environment.step(new int[size], 2, observations, rewards, dones);
+        assertEquals(0, rewards[0]);
+        assertTrue(dones[0]);
+
+        environment.reset(0, 0);
+        environment.step(new int[size], 1, observations, rewards, dones);
+        assertEquals(2, rewards[0]);
+        assertFalse(dones[0]);
+    }
+
+    @Test
+    void shouldHoldTheKeysOfEachAction() {
+        int size = 2;
+        BatchEnvironment environment = new BatchEnvironment(KEY_FIVE, SETTINGS, RewardSpec.parse("score=0x301"),
+                size, BatchEnvironment.ObservationFormat.PACKED_BITS, pool);
+        ByteBuffer observations = ByteBuffer.allocateDirect(size * environment.getObservationBytes());
+        float[] rewards = new float[size];
+
+        environment.step(new int[]{1 << 5, 1 << 4}, 1, observations, rewards, new boolean[size]);
+
+        assertArrayEquals(new float[]{1, 0}, rewards);
+    }
+
+    @Test
+    void shouldEndEpisodeWhenInstanceFaults() {
+        BatchEnvironment environment = new BatchEnvironment(new byte[]{0x00, (byte) 0xEE}, SETTINGS,
+                RewardSpec.NONE, 1, BatchEnvironment.ObservationFormat.PACKED_BITS, pool);
+        boolean[] dones = new boolean[1];
+
+        environment.step(new int[1], 1, ByteBuffer.allocateDirect(256), new float[1], dones);
+
+        assertTrue(dones[0]);
+    }
+
+    @Test
+    void shouldRejectHeapAndShortBuffers() {
+        BatchEnvironment environment = new BatchEnvironment(COUNTER, SETTINGS, RewardSpec.NONE, 2,
+                BatchEnvironment.ObservationFormat.PACKED_BITS, pool);
+
+        assertThrows(IllegalArgumentException.class, () -> environment.observe(ByteBuffer.allocate(512)));
+        assertThrows(IllegalArgumentException.class, () -> environment.observe(ByteBuffer.allocateDirect(511)));
+        environment.observe(ByteBuffer.allocateDirect(512).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    void shouldParseBcdScores() {
+        RewardSpec spec = RewardSpec.parse("score=0x3F0:3:bcd,done=0x3F4==0");
+        int[] memory = new int[4096];
+        memory[0x3F0] = 1;
+        memory[0x3F1] = 2;
+        memory[0x3F2] = 7;
+        memory[0x3F4] = 2;
+
+        assertEquals(127, spec.score(memory));
+        assertFalse(spec.isDone(memory));
+        assertThrows(IllegalArgumentException.class, () -> RewardSpec.parse("lives=0x3F4"));
+    }
+
+    private static boolean[][] interpret(byte[] program, int frames) {
+        Processor processor = new Processor(SETTINGS.quirks());
+        processor.seedRandom(0);
+        processor.loadMemory(program);
+        FrameScheduler scheduler = new FrameScheduler(processor, FrameScheduler.cyclesPerFrame(SETTINGS.clockHz()));
+        for (int frame = 0; frame < frames; frame++) {
+            scheduler.runFrame();
+        }
+        return processor.getScreen();
+    }
+}
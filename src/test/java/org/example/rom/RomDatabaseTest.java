@@ -0,0 +1,53 @@
+package org.example.rom;
+
+import org.example.processor.Quirks;
+import org.example.processor.TimingMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RomDatabaseTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldFindSavedSettingsByRomContent() throws IOException {
+        byte[] program = new byte[]{0x00, (byte) 0xE0, 0x12, 0x00};
+        RomSettings settings = new RomSettings(1000, Quirks.COSMAC_VIP, "1234QWERASDFZXCV", TimingMode.COSMAC_VIP);
+        Path path = directory.resolve("roms.db");
+
+        RomDatabase database = new RomDatabase();
+        database.put(RomHash.of(program), settings);
+        database.save(path);
+        RomDatabase loaded = RomDatabase.load(path);
+
+        assertEquals(1, loaded.size());
+        assertEquals(settings, loaded.find(program.clone()));
+    }
+
+    @Test
+    void shouldReturnDefaultSettingsWhenRomIsUnknown() {
+        RomDatabase database = new RomDatabase();
+
+        assertEquals(RomSettings.DEFAULT, database.find(new byte[]{0x12, 0x00}));
+    }
+
+    @Test
+    void shouldRejectUnknownSettingOrdinal() throws IOException {
+        Path path = directory.resolve("roms.db");
+        RomDatabase database = new RomDatabase();
+        database.put(RomHash.of(new byte[]{0x12, 0x00}), RomSettings.DEFAULT);
+        database.save(path);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] = 0x7F; // the timing mode of the only entry
+        Files.write(path, bytes);
+
+        assertThrows(IOException.class, () -> RomDatabase.load(path));
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.rom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RomLibraryTest {
+    // Draws the font sprite for 0 at (0, 0) and loops
+    private static final byte[] DRAW_ZERO = {0x60, 0x00, (byte) 0xF0, 0x29, (byte) 0xD0, 0x05, 0x12, 0x06};
+    private static final byte[] LOOP = {0x12, 0x00};
+    // Returns with an empty stack
+    private static final byte[] CRASH = {0x00, (byte) 0xEE};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldIndexDirectoriesAndArchivesSortedByTitle() throws IOException {
+        Path roms = Files.createDirectories(directory.resolve("roms"));
+        Files.write(roms.resolve("Zero [Someone, 2020].ch8"), DRAW_ZERO);
+        Files.write(roms.resolve("notes.txt"), new byte[]{1, 2, 3});
+        Path archive = writeArchive(directory.resolve("more.zip"), "games/Loop_Forever.ch8", LOOP);
+        Path index = directory.resolve("library.idx");
+
+        RomLibrary.Refresh refresh = RomLibrary.empty().refresh(index, List.of(roms, archive), new RomDatabase());
+        RomLibrary library = RomLibrary.open(index);
+
+        assertEquals(2, refresh.added());
+        assertEquals(2, library.size());
+        assertEquals("Loop Forever", library.getTitle(0));
+        assertEquals("Zero", library.getTitle(1));
+        assertEquals(RomHash.of(LOOP), library.getHash(0));
+        assertEquals(DRAW_ZERO.length, library.getRomSize(1));
+        assertArrayEquals(LOOP, library.readProgram(0));
+        assertArrayEquals(DRAW_ZERO, library.readProgram(1));
+        assertEquals(1, library.indexOf(RomHash.of(DRAW_ZERO)));
+    }
+
+    @Test
+    void shouldRenderThumbnailsFromHeadlessRun() throws IOException {
+        Files.write(directory.resolve("zero.ch8"), DRAW_ZERO);
+        Files.write(directory.resolve("crash.ch8"), CRASH);
+
+        RomLibrary library = RomLibrary.empty()
+                .refresh(directory.resolve("library.idx"), List.of(directory), new RomDatabase()).library();
+
+        long[] thumbnail = library.getThumbnail(1);
+        assertEquals(0xF0L << 56, thumbnail[0]);
+        assertEquals(0x90L << 56, thumbnail[1]);
+        assertEquals(0, thumbnail[5]);
+        assertFalse(library.isFaulted(1));
+        assertTrue(library.isFaulted(0));
+    }
+
+    @Test
+    void shouldOnlyReindexChangedFiles() throws IOException {
+        Path zero = directory.resolve("zero.ch8");
+        Path loop = directory.resolve("loop.ch8");
+        Files.write(zero, DRAW_ZERO);
+        Files.write(loop, LOOP);
+        Path index = directory.resolve("index").resolve("library.idx");
+        RomLibrary library = RomLibrary.empty().refresh(index, List.of(directory), new RomDatabase()).library();
+
+        RomLibrary.Refresh unchanged = library.refresh(index, List.of(directory), new RomDatabase());
+        assertFalse(unchanged.isChanged());
+        assertSame(library, unchanged.library());
+
+        Files.write(loop, CRASH);
+        Files.setLastModifiedTime(loop, FileTime.fromMillis(Files.getLastModifiedTime(loop).toMillis() + 2000));
+        Files.delete(zero);
+        RomLibrary.Refresh changed = library.refresh(index, List.of(directory), new RomDatabase());
+
+        assertEquals(new RomLibrary.Refresh(changed.library(), 0, 1, 1, 0), changed);
+        assertEquals(1, RomLibrary.open(index).size());
+        assertEquals(RomHash.of(CRASH), RomLibrary.open(index).getHash(0));
+        assertNotEquals(library.getHash(0), changed.library().getHash(0));
+    }
+
+    private static Path writeArchive(Path path, String name, byte[] program) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(program);
+            zip.closeEntry();
+        }
+        return path;
+    }
+}
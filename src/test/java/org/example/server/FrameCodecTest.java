@@ -0,0 +1,58 @@
+package org.example.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.example.processor.Processor.SCREEN_HEIGHT;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameCodecTest {
+    @Test
+    void shouldRebuildFrameFromDelta() {
+        long[] previous = new long[SCREEN_HEIGHT];
+        long[] current = new long[SCREEN_HEIGHT];
+        previous[3] = 0xFF00FF00FF00FF00L;
+        current[3] = 0xFF00FF0000000000L;
+        current[31] = 0x8000000000000001L;
+        long[] decoded = previous.clone();
+        ByteBuffer buffer = ByteBuffer.allocate(FrameCodec.MAX_FRAME_SIZE);
+
+        boolean changed = FrameCodec.encode(previous, current, true, buffer);
+        buffer.flip();
+        int flags = FrameCodec.decode(buffer, decoded);
+
+        assertTrue(changed);
+        assertArrayEquals(current, decoded);
+        assertEquals(FrameCodec.SOUND_FLAG, flags);
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void shouldEncodeUnchangedFrameAsHeaderOnly() {
+        long[] frame = new long[SCREEN_HEIGHT];
+        ByteBuffer buffer = ByteBuffer.allocate(FrameCodec.MAX_FRAME_SIZE);
+
+        boolean changed = FrameCodec.encode(frame, frame, false, buffer);
+
+        assertFalse(changed);
+        assertEquals(5, buffer.position());
+    }
+
+    @Test
+    void shouldFitWorstCaseFrame() {
+        long[] previous = new long[SCREEN_HEIGHT];
+        long[] current = new long[SCREEN_HEIGHT];
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            current[y] = 0x0102030405060708L;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(FrameCodec.MAX_FRAME_SIZE);
+
+        FrameCodec.encode(previous, current, false, buffer);
+
+        assertEquals(FrameCodec.MAX_FRAME_SIZE, buffer.position());
+    }
+}